@@ -1,23 +1,56 @@
 package edu.um.chromaster;
 
+import edu.um.chromaster.graph.Colouring;
+import edu.um.chromaster.graph.CompactGraph;
 import edu.um.chromaster.graph.Graph;
-import edu.um.chromaster.graph.Node;
+import edu.um.chromaster.solver.BacktrackingSolver;
+import edu.um.chromaster.solver.Deadline;
+import edu.um.chromaster.solver.DsaturSolver;
+import edu.um.chromaster.solver.InclusionExclusionSolver;
+import edu.um.chromaster.solver.MaxCliqueSolver;
+import edu.um.chromaster.solver.Progress;
+import edu.um.chromaster.solver.SatColouringSolver;
+import edu.um.chromaster.solver.SolverMetrics;
+import edu.um.chromaster.solver.SolverStats;
+import edu.um.chromaster.solver.TabuColSolver;
+import edu.um.chromaster.solver.UpperBoundPortfolio;
 
 import java.util.*;
 import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicReference;
 import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.IntFunction;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
 public class ChromaticNumber {
 
     private static ScheduledThreadPoolExecutor schedule = new ScheduledThreadPoolExecutor(2);
 
+    //--- the exact search and the clique search are split into subproblems that are solved on all cores
+    private static ForkJoinPool searchPool = new ForkJoinPool(Runtime.getRuntime().availableProcessors());
+
+    //--- time-bound computations run here, so the caller can wait for them with a timeout
+    private static ExecutorService boundExecutor = Executors.newCachedThreadPool(runnable -> {
+        final Thread thread = new Thread(runnable, "chromatic-bound");
+        thread.setDaemon(true);
+        return thread;
+    });
+
     //---
     private final static long TIME_LIMIT_EXACT = TimeUnit.SECONDS.toNanos(60);
     private final static long TIME_LIMIT_LOWER = TimeUnit.SECONDS.toNanos(10);
     private final static long TIME_LIMIT_UPPER = TimeUnit.SECONDS.toNanos(10);
+    //--- how long a computation may overrun its deadline before it is interrupted and its result is given up
+    private final static long DEADLINE_GRACE = TimeUnit.SECONDS.toNanos(1);
+
+    //--- small graphs with at least this density are solved by counting independent sets instead of backtracking, the
+    // counting takes about 2^n steps no matter how hard the graph is, see InclusionExclusionSolver
+    private final static int INCLUSION_EXCLUSION_MAX_SIZE = 24;
+    private final static double INCLUSION_EXCLUSION_DENSITY = 0.2;
 
     public enum Type {
         UPPER,
@@ -25,73 +58,170 @@ public class ChromaticNumber {
         EXACT
     }
 
-    public static void computeAsync(Type type, Graph graph, Consumer<Result> consumer) {
-        CompletableFuture.supplyAsync(() -> compute(type, graph, false), schedule).thenAccept(consumer);
+    /**
+     * The algorithm used to compute {@link Type#EXACT}.
+     */
+    public enum ExactStrategy {
+        //--- tries k = upper - 1, upper - 2, ... colours with plain backtracking, while the lower bound runs in parallel,
+        // see BacktrackingSolver
+        BACKTRACKING,
+        //--- branch-and-bound on the most saturated node, see DsaturSolver
+        DSATUR,
+        //--- like BACKTRACKING, but every k is decided by the CDCL solver, see SatColouringSolver
+        SAT,
+        //--- like BACKTRACKING, but every k is decided by backtracking and the CDCL solver at the same time, the first
+        // one to finish wins
+        SAT_RACE
+    }
+
+    /**
+     * The algorithm used to compute {@link Type#UPPER}, its colouring is also the incumbent the exact search starts from.
+     */
+    public enum UpperStrategy {
+        //--- the best of several greedy heuristics, see UpperBoundPortfolio
+        PORTFOLIO,
+        //--- the portfolio, improved by local search as far as the budget allows, see TabuColSolver
+        TABUCOL
+    }
+
+    private static volatile ExactStrategy exactStrategy = ExactStrategy.DSATUR;
+    private static volatile UpperStrategy upperStrategy = UpperStrategy.PORTFOLIO;
+
+    public static ExactStrategy getExactStrategy() {
+        return exactStrategy;
+    }
+
+    public static void setExactStrategy(ExactStrategy exactStrategy) {
+        ChromaticNumber.exactStrategy = exactStrategy;
+    }
+
+    public static UpperStrategy getUpperStrategy() {
+        return upperStrategy;
     }
 
+    public static void setUpperStrategy(UpperStrategy upperStrategy) {
+        ChromaticNumber.upperStrategy = upperStrategy;
+    }
+
+    /**
+     * Runs the requested computation in the background.
+     * @param consumer Called with the result once the computation has finished, it is not called if the computation has
+     *                 been cancelled.
+     * @return Never null, the handle to follow or cancel the computation.
+     */
+    public static Handle computeAsync(Type type, Graph graph, Consumer<Result> consumer) {
+        final Handle handle = new Handle();
+        handle.future = CompletableFuture.supplyAsync(() -> compute(type, graph, false, handle.deadline, handle.progress), boundExecutor);
+        handle.future.whenComplete((result, e) -> handle.end = System.nanoTime());
+        handle.future.thenAccept(result -> {
+            if(!handle.deadline.isCancelled()) {
+                consumer.accept(result);
+            }
+        });
+        return handle;
+    }
+
+    /**
+     * Computes the chromatic number and publishes every improvement of the bounds as soon as it is found, so a
+     * subscriber can use a good-enough colouring right away instead of waiting for the exact result.
+     *
+     * Every item contains the best known lower and upper bound, and the best colouring found so far. The last item is
+     * {@link Result#isReady() ready}, it is published once the bounds meet or the time budget expires, and then the
+     * publisher completes. Its {@link Result#getExact()} is only set if the bounds have met.
+     *
+     * The computation starts with the first subscriber, later subscribers only receive the items published after they
+     * have subscribed. A subscriber that falls behind misses intermediate items, but never the last one.
+     * @param graph The graph.
+     * @param timeInNanoseconds The time budget.
+     */
+    public static Flow.Publisher<Result> computeAnytime(Graph graph, long timeInNanoseconds) {
+        return new AnytimePublisher(graph, timeInNanoseconds);
+    }
+
+    /**
+     * Runs the requested computation. The graph itself is only read, the colouring of the graph that is shown to the
+     * player ({@link Graph#getColouring()}) is never touched, so this can run on the same graph the player works on.
+     */
     public static Result compute(Type type, Graph graph, boolean runTimeBound) {
-        graph.reset();
+        return compute(type, graph, runTimeBound, Deadline.none(), new Progress());
+    }
 
+    /**
+     * Runs the requested computation, it stops early with the best result found so far once the deadline expires. The
+     * result gets the {@link SolverStats} of the progress, which are also added to the {@link SolverMetrics}.
+     */
+    private static Result compute(Type type, Graph graph, boolean runTimeBound, Deadline deadline, Progress progress) {
+        final SolverMetrics metrics = SolverMetrics.get();
+        metrics.started();
+        Result result = null;
+        try {
+            result = solve(type, graph, runTimeBound, deadline, progress);
+            return result;
+        } finally {
+            final SolverStats stats = progress.snapshot();
+            if(result != null) {
+                result.stats = stats;
+            }
+            metrics.finished(stats);
+        }
+    }
+
+    private static Result solve(Type type, Graph graph, boolean runTimeBound, Deadline deadline, Progress progress) {
         switch (type) {
 
-            case LOWER: return runTimeBound ? limitedTimeLowerBound(graph) : new Result(null,-1, lowerBound(graph), -1, true);
-            case UPPER: return runTimeBound ? limitedTimeUpper(graph) : new Result(null,-1, -1, upperBound(graph), true);
-            case EXACT: return runTimeBound ? limitedTimeExactTest(graph) : exactTest(graph, false);
+            case LOWER: return runTimeBound ? limitedTimeLowerBound(graph, deadline, progress) : new Result(null,-1, lowerBound(graph, deadline, progress), -1, true);
+            case UPPER: return runTimeBound ? limitedTimeUpper(graph, deadline, progress) : upperBound(graph, deadline, progress);
+            case EXACT: {
+                if(exactStrategy == ExactStrategy.DSATUR) {
+                    return runTimeBound ? limitedTimeDsatur(graph, deadline, progress) : dsatur(graph, deadline, progress);
+                }
+                if(isInclusionExclusionCase(graph)) {
+                    return runTimeBound ? limitedTimeInclusionExclusion(graph, deadline, progress) : inclusionExclusion(graph, deadline, progress);
+                }
+                return runTimeBound ? limitedTimeExactTest(graph, deadline, progress) : exactTest(graph, deadline, progress, false);
+            }
 
         }
         throw new IllegalStateException();
     }
 
     //---
-    private static Result limitedTimeExactTest(Graph graph) {
-        return timeBoundMethodExecution(new MethodRunnable() {
-            @Override
-            public void run() {
-                this.setResult(exactTest(graph, true));
-            }
-        }, TIME_LIMIT_EXACT);
+    private static Result limitedTimeExactTest(Graph graph, Deadline parent, Progress progress) {
+        return timeBoundMethodExecution(parent, deadline -> exactTest(graph, deadline, progress, true), TIME_LIMIT_EXACT, () -> greedyUpperBound(graph, progress));
     }
 
-    private static Result limitedTimeLowerBound(Graph graph) {
-        Result result = timeBoundMethodExecution(new MethodRunnable() {
-            @Override
-            public void run() {
-                Result r = new Result(null,-1, lowerBound(graph), -1, true);
-                this.setResult(r);
-            }
-        }, TIME_LIMIT_LOWER);
+    private static Result limitedTimeDsatur(Graph graph, Deadline parent, Progress progress) {
+        return timeBoundMethodExecution(parent, deadline -> dsatur(graph, deadline, progress), TIME_LIMIT_EXACT, () -> greedyUpperBound(graph, progress));
+    }
 
-        if(result.getLower() == -1) {
-            result = new Result(null,-1, basicLowerBound(graph), -1, true);
-        }
+    private static Result limitedTimeInclusionExclusion(Graph graph, Deadline parent, Progress progress) {
+        return timeBoundMethodExecution(parent, deadline -> inclusionExclusion(graph, deadline, progress), TIME_LIMIT_EXACT, () -> greedyUpperBound(graph, progress));
+    }
 
-        return result;
+    private static Result limitedTimeLowerBound(Graph graph, Deadline parent, Progress progress) {
+        //--- an expired clique search still returns the largest clique found so far, which is a valid lower bound
+        return timeBoundMethodExecution(parent, deadline -> new Result(null,-1, lowerBound(graph, deadline, progress), -1, true),
+                TIME_LIMIT_LOWER, () -> new Result(null,-1, basicLowerBound(graph), -1, true));
     }
 
     private static int basicLowerBound(Graph graph) {
-        int tmp = graph.getEdges().entrySet().stream().mapToInt(e -> e.getValue().size()).min().getAsInt();
+        final CompactGraph compact = graph.compact();
+        int tmp = Integer.MAX_VALUE;
+        for(int v = 0; v < compact.size(); v++) {
+            tmp = Math.min(tmp, compact.degree(v));
+        }
         return (tmp == 1) ? 2 : tmp;
     }
 
-    private static Result limitedTimeUpper(Graph graph) {
-        Result result = timeBoundMethodExecution(new MethodRunnable() {
-            @Override
-            public void run() {
-                Result r = new Result(null,-1, -1, upperBound(graph), true);
-                this.setResult(r);
-            }
-        }, TIME_LIMIT_UPPER);
-
-        if(result.getUpper() == -1) {
-            result = new Result(null,0, 0, simpleUpperBound(graph), true);
-        }
-        return result;
+    private static Result limitedTimeUpper(Graph graph, Deadline parent, Progress progress) {
+        return timeBoundMethodExecution(parent, deadline -> upperBound(graph, deadline, progress), TIME_LIMIT_UPPER, () -> new Result(null,0, 0, simpleUpperBound(graph), true));
     }
 
     // --- EXACT SECTION ---
-    private static Result exactTest(Graph graph, boolean runTimeBound) {
+    private static Result exactTest(Graph graph, Deadline deadline, Progress progress, boolean runTimeBound) {
         //--- the upper bound that we either find by running our upper-bound algorithm
-        final AtomicInteger upper = new AtomicInteger(runTimeBound ? limitedTimeUpper(graph).getUpper() : upperBound(graph));
+        final Result upperBound = runTimeBound ? limitedTimeUpper(graph, deadline, progress) : upperBound(graph, deadline, progress);
+        final AtomicInteger upper = new AtomicInteger(upperBound.getUpper());
 
         // if the upper bound algorithm fails, we cannot do anything anymore
         if(upper.get() == -1) {
@@ -101,76 +231,93 @@ public class ChromaticNumber {
         // run the lower bound algorithm, if it is supposed to be time-limited
         AtomicInteger lower = new AtomicInteger(0);
         if(runTimeBound) {
-            lower.set(limitedTimeLowerBound(graph).getLower());
+            lower.set(limitedTimeLowerBound(graph, deadline, progress).getLower());
         }
 
         //--- the current range of values we are expecting to inspect
         final int upperResult = upper.get();
         final int lowerResult = lower.get();
-        System.out.printf("<Exact Test> Range: [%d..%d]%n", lowerResult, upperResult);
 
         //--- if the bounds are equal then this is the chromatic number
         if(upperResult == lowerResult) {
-            return new Result(graph, lowerResult, lowerResult, upperResult, true);
+            return new Result(upperBound.getSolution(), lowerResult, lowerResult, upperResult, true);
         }
 
         //--- we do start testing upperBound-1 because we know for sure that upper-bound itself is going to work, so
         // testing it is a waste of resources.
         upper.addAndGet(-1);
-        graph.reset();
 
-        AtomicReference<Graph> colouredGraph = new AtomicReference<>();
+        //--- the colouring found by the upper-bound algorithm stays the solution until the exact test finds a better one
+        AtomicReference<Colouring> colouredGraph = new AtomicReference<>(upperBound.getSolution());
 
         AtomicReference<Integer> exactTestResult = new AtomicReference<Integer>(null);
         AtomicReference<Integer> lowerTestResult = new AtomicReference<Integer>(null);
 
+        //--- the exact test and the lower bound stop once the deadline expires, or once one of them has settled the result
+        final Deadline search = deadline.child();
+        //--- whether the exact test or the lower bound has proven the result, rather than run out of time
+        final AtomicBoolean settled = new AtomicBoolean(false);
+
         //--- Run the exact test async, so we can run the lower-bound algorithm in parallel
         AtomicReference<Future> future = new AtomicReference<>();
         future.set(schedule.submit(() -> {
-            while(exact(graph, upper.get())) {
-                System.out.printf("<Exact Test> The graph CAN be coloured with %d colours.%n", upper.get());
-                colouredGraph.set(graph.clone());
-                graph.reset();
+            final long start = System.nanoTime();
+            final IntFunction<Colouring> test = colourabilityTest(graph, upperBound.getSolution(), search, progress);
+            while(true) {
+                final Colouring colouring = test.apply(upper.get());
+                if(colouring == null) {
+                    //--- the graph cannot be coloured with upper colours, unless the test has only given up because the
+                    // search has expired
+                    if(!search.isExpired()) {
+                        settled.set(true);
+                    }
+                    break;
+                }
+                colouredGraph.set(colouring);
+                progress.improveUpper(upper.get());
 
                 if(upper.get() == lower.get()) {
-                    System.out.println(future.get().isCancelled());
-                    if (!future.get().isCancelled()) {
+                    if (!search.isCancelled()) {
                         upper.addAndGet(-1);
                     }
+                    settled.set(true);
                     break;
                 }
                 // TODO cleanup
                 else if(upper.get() < lower.get()) {
-                    System.out.println(future.get().isCancelled());
-                    if(!future.get().isCancelled()) {
+                    if(!search.isCancelled()) {
                         upper.set(lower.get() - 1);
                     }
+                    settled.set(true);
                     break;
                 }
                 upper.addAndGet(-1);
             }
 
+            //--- the lower bound cannot improve the result anymore
+            search.cancel();
+            progress.addPhaseTime(SolverStats.Phase.EXACT, System.nanoTime() - start);
         }));
 
         //--- run the lower-bound algorithm async at the same time as the exact tests are going on
         Future lowerBoundFuture = null;
         if(!(runTimeBound)) {
-            lowerBoundFuture = CompletableFuture.supplyAsync(() -> lowerBound(graph)).thenAccept((result) -> {
+            lowerBoundFuture = CompletableFuture.supplyAsync(() -> lowerBound(graph, search, progress)).thenAccept((result) -> {
                 lower.set(result);
-                System.out.printf("<Exact Test> Updated lower bound: %d%n", lower.get());
-                System.out.printf("<Exact Test> Range: [%d..%d]%n", Math.min(lower.get(), upper.get()), Math.max(lower.get(), upper.get()));
 
-                //--- if the result is greater than or equal to the upper (aka. the current chromatic number test value)
-                // then we are done, and the result (lower-bound) is the chromatic number.
-                if(result >= upper.get()) {
-                    future.get().cancel(true); // cancel the main check to stop it from eroding our data.
+                //--- if the result is greater than the upper (aka. the current chromatic number test value), then it
+                // matches the best colouring found so far, and the result (lower-bound) is the chromatic number.
+                if(result > upper.get()) {
+                    search.cancel(); // cancel the main check to stop it from eroding our data.
                     try {
                         future.get().get();
-                    } catch (InterruptedException | ExecutionException e) {
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    } catch (ExecutionException e) {
                         e.printStackTrace();
                     }
                     upper.set(result - 1); // set result
-                    System.out.printf("<Exact Test> Exact: %d (determined by lower-bound async execution)%n", (upper.get() + 1) );
+                    settled.set(true);
                 }
             });
         }
@@ -182,159 +329,245 @@ public class ChromaticNumber {
                 ((CompletableFuture) lowerBoundFuture).join();
             }
             future.get().get();
-        } catch (InterruptedException | ExecutionException e) {
+        } catch (InterruptedException e) {
+            search.cancel();
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
             e.printStackTrace();
         }
 
+        //--- the time has run out before the result was settled, the best colouring found so far is only an upper bound
+        if(!settled.get()) {
+            return new Result(colouredGraph.get(), -1, lowerResult, colouredGraph.get().countColours(), true);
+        }
+
         //--- we are done, we have to increase the upper-bound by +1 because it contains the current upper-bound we tested
         // was no longer valid so the value before that is the chromatic number.
         final int exact = upper.get() + 1;
-        System.out.println("<Exact Test> Exact: " + exact);
         return new Result(colouredGraph.get(), exact, lowerResult, upperResult, true);
-
-
     }
 
-    private static boolean exact(Graph graph, int colours) {
-        return exact(graph, colours, graph.getNode(graph.getMinNodeId()), 0, 0);
+    /**
+     * The test of {@link #exactTest(Graph, Deadline, Progress, boolean)} for one k, depending on the {@link ExactStrategy}.
+     * It returns a colouring with k colours, or null, if there is none or the deadline has expired. The solvers are
+     * created once, so they can reuse what they have learned for k + 1 when they test k.
+     * @param incumbent The colouring of the upper bound, the backtracking test tries to repair it first.
+     */
+    private static IntFunction<Colouring> colourabilityTest(Graph graph, Colouring incumbent, Deadline deadline, Progress progress) {
+        switch (exactStrategy) {
+            case SAT: {
+                //--- one solver for all k, so the clique that breaks the symmetry is only searched once
+                final SatColouringSolver sat = new SatColouringSolver(graph.compact());
+                sat.setDeadline(deadline);
+                sat.setProgress(progress);
+                return colours -> sat.colour(colours);
+            }
+            case SAT_RACE: {
+                final SatColouringSolver sat = new SatColouringSolver(graph.compact());
+                sat.setProgress(progress);
+                final BacktrackingSolver backtracking = new BacktrackingSolver(graph.compact());
+                backtracking.setIncumbent(incumbent);
+                backtracking.setProgress(progress);
+                return colours -> race(colours, backtracking, sat, deadline);
+            }
+            default: {
+                final BacktrackingSolver backtracking = new BacktrackingSolver(graph.compact());
+                backtracking.setIncumbent(incumbent);
+                backtracking.setDeadline(deadline);
+                backtracking.setProgress(progress);
+                return colours -> backtracking.colour(colours);
+            }
+        }
     }
 
-    private static boolean exact(Graph graph, int color_nb, Node node, int level, int maxl) {
-        maxl = Math.max(maxl, level);
-
-        //--- Are all nodes coloured? If so, we are done.
-        if(graph.getNodes().values().stream().noneMatch(e -> e.getValue() == -1)) {
-            return true;
+    /**
+     * Runs the backtracking test in the background and the SAT test on this thread. Whichever decides k first cancels the
+     * other one, a test that has only given up because of its deadline does not decide anything. If neither test has
+     * decided k, the deadline is cancelled, so the caller does not take the null for "not colourable".
+     */
+    private static Colouring race(int colours, BacktrackingSolver backtracking, SatColouringSolver sat, Deadline deadline) {
+        final Deadline backtrackingDeadline = deadline.child();
+        final Deadline satDeadline = deadline.child();
+        final AtomicBoolean decided = new AtomicBoolean(false);
+
+        backtracking.setDeadline(backtrackingDeadline);
+        final Future<Colouring> future = boundExecutor.submit(() -> {
+            final Colouring colouring = backtracking.colour(colours);
+            if(!backtrackingDeadline.isExpired()) {
+                decided.set(true);
+                satDeadline.cancel();
+            }
+            return colouring;
+        });
+
+        sat.setDeadline(satDeadline);
+        Colouring colouring = sat.colour(colours);
+        if(!satDeadline.isExpired()) {
+            decided.set(true);
+            backtrackingDeadline.cancel();
         }
 
-        //--- Check this note for all colours
-        for(int c = 1; c <= color_nb; c++) {
-            if(exactIsColourAvailable(graph, node, c)) {
-                node.setValue(c);
-
-                Node next = graph.getNextAvailableNode(node);
-                if(next == null || exact(graph, color_nb, next, level + 1, maxl)) {
-                    return true;
-                }
-
-                node.setValue(-1);
+        try {
+            final Colouring other = future.get();
+            if(colouring == null) {
+                colouring = other;
             }
+        } catch (InterruptedException e) {
+            backtrackingDeadline.cancel();
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            //--- stop the search, a crashed test must not be taken for "not colourable"
+            deadline.cancel();
+            throw new IllegalStateException(e.getCause());
         }
 
-        return false;
+        //--- both tests have run out of time, nothing is known about k colours
+        if(colouring == null && !decided.get()) {
+            deadline.cancel();
+        }
+        return colouring;
     }
 
-    private static boolean exactIsColourAvailable(Graph graph, Node node, int colour) {
-        return graph.getEdges(node.getId()).stream().noneMatch(e -> e.getTo().getValue() == colour);
+    /**
+     * Computes the chromatic number with {@link DsaturSolver}, starting from the greedy upper bound and the maximum clique
+     * as the lower bound. On machines with more
+     * than one core the search runs in parallel on the {@link #searchPool}. Once the deadline expires the best colouring
+     * found so far is returned.
+     */
+    private static Result dsatur(Graph graph, Deadline deadline, Progress progress) {
+        final Result upperBound = upperBound(graph, deadline, progress);
+        final DsaturSolver solver = new DsaturSolver(graph.compact(), parallelPool());
+        solver.setDeadline(deadline);
+        solver.setProgress(progress);
+        final int lower = lowerBound(graph, deadline, progress);
+
+        final long start = System.nanoTime();
+        final Colouring colouring = solver.solve(lower, upperBound.getSolution());
+        progress.addPhaseTime(SolverStats.Phase.EXACT, System.nanoTime() - start);
+
+        //--- the colouring is only known to be optimal if the search has finished before the deadline
+        final int exact = solver.isOptimal() ? colouring.countColours() : -1;
+        return new Result(colouring, exact, solver.getLowerBound(), colouring.countColours(), true);
     }
 
-    // --- UPPER BOUND SECTION ---
-    private static int upperBound(Graph graph) {
-        return upperBoundIterative(graph);
+    private static boolean isInclusionExclusionCase(Graph graph) {
+        final CompactGraph compact = graph.compact();
+        return compact.size() <= INCLUSION_EXCLUSION_MAX_SIZE && compact.density() >= INCLUSION_EXCLUSION_DENSITY;
     }
 
-    private static int simpleUpperBound(Graph graph) {
-        return graph.getEdges().values().stream().mapToInt(Map::size).max().getAsInt() + 1;
-    }
-
-    private static int upperBoundIterative(Graph graph) {
-        //--- Build unvisited map ordered by degree of nodes descending
-        Stack<Node> unvisited = graph.getNodes().values().stream()
-                .sorted(Comparator.comparingInt(o -> graph.getEdges(o.getId()).size()))
-                .collect(Collectors.toCollection(Stack::new));
-        int max = 0;
-        while (!unvisited.isEmpty()){
-            Node node = unvisited.pop();
-
-            //--- What colours does its neighbours have?
-            List<Node.Edge> edges = graph.getEdges(node.getId());
-            List<Integer> colours = edges.stream()
-                    .filter(edge -> edge.getTo().getValue() != -1)
-                    .map(edge -> edge.getTo().getValue())
-                    .collect(Collectors.toList());
-
-            //--- No colours -> first node being visited in the graph
-            if (colours.isEmpty()) {
-                node.setValue(0);
-            }
-            //--- At least one colour -> not the first node anymore
-            else {
-
-                //--- "Highest"  value/colour adjacent to the node
-                final int maxColour = colours.stream().max(Comparator.naturalOrder()).get();
-
-                int colour = 0; // Lowest value we can chose for a valid colour
-
-                //--- try to ideally find an existing colour that we can reuse
-                while (colour <= maxColour) {
-                    if (!colours.contains(colour)) {
-                        break;
-                    }
-                    colour++;
-                }
+    /**
+     * Computes the chromatic number between the clique and the upper bound with the {@link InclusionExclusionSolver}, on
+     * all cores if there are more than one. A colouring with that many colours is then found by {@link DsaturSolver},
+     * which stops as soon as it reaches it. Once the deadline expires the upper bound is returned.
+     */
+    private static Result inclusionExclusion(Graph graph, Deadline deadline, Progress progress) {
+        final Result upperBound = upperBound(graph, deadline, progress);
+        final int lower = lowerBound(graph, deadline, progress);
+
+        final long start = System.nanoTime();
+        final InclusionExclusionSolver solver = new InclusionExclusionSolver(graph.compact(), parallelPool());
+        solver.setDeadline(deadline);
+        solver.setProgress(progress);
+        final int exact = solver.solve(lower, upperBound.getUpper());
+
+        Colouring colouring = upperBound.getSolution();
+        if(exact != -1 && exact < upperBound.getUpper()) {
+            final DsaturSolver dsatur = new DsaturSolver(graph.compact(), parallelPool());
+            dsatur.setDeadline(deadline);
+            dsatur.setProgress(progress);
+            colouring = dsatur.solve(exact, colouring);
+        }
+        progress.addPhaseTime(SolverStats.Phase.EXACT, System.nanoTime() - start);
 
-                node.setValue(colour);
-                max = Math.max(max, colour);
+        //--- the count is exact even if the deadline has stopped the colouring search early, -1 if the count itself has
+        // not finished
+        return new Result(colouring, exact, lower, colouring.countColours(), true);
+    }
 
-            }
+    // --- UPPER BOUND SECTION ---
 
+    /**
+     * Runs the {@link UpperBoundPortfolio}, the heuristics run in parallel on the {@link #searchPool}. With
+     * {@link UpperStrategy#TABUCOL} its colouring is then improved by {@link TabuColSolver} until the deadline expires or
+     * the local search gets stuck.
+     */
+    private static Result upperBound(Graph graph, Deadline deadline, Progress progress) {
+        final long start = System.nanoTime();
+        final UpperBoundPortfolio portfolio = new UpperBoundPortfolio(graph.compact(), parallelPool());
+        portfolio.setDeadline(deadline);
+        Colouring colouring = portfolio.solve();
+        progress.setHeuristic(portfolio.getHeuristic());
+        progress.improveUpper(colouring.countColours());
+
+        if(upperStrategy == UpperStrategy.TABUCOL) {
+            final TabuColSolver tabuCol = new TabuColSolver(graph.compact());
+            tabuCol.setDeadline(deadline);
+            tabuCol.setProgress(progress);
+            colouring = tabuCol.solve(colouring, 0);
         }
+        progress.addPhaseTime(SolverStats.Phase.UPPER, System.nanoTime() - start);
+        return new Result(colouring, -1, -1, colouring.countColours(), true);
+    }
 
-        return max + 1;
+    /**
+     * A single first-fit pass in the order of decreasing degree, the fallback if there is no time for the portfolio.
+     */
+    private static Result greedyUpperBound(Graph graph, Progress progress) {
+        final Colouring colouring = new Colouring(graph.compact().size());
+        final int upper = UpperBoundPortfolio.welshPowell(graph.compact(), colouring.values());
+        progress.improveUpper(upper);
+        return new Result(colouring, -1, -1, upper, true);
+    }
 
+    private static int simpleUpperBound(Graph graph) {
+        return graph.compact().maxDegree() + 1;
     }
 
-    private static int simpleGreedyUpperBound(Graph graph) {
-        HashMap<Integer, Node> unvisited = new LinkedHashMap<>();
-        Map.Entry<Integer, Node> entry = graph.getNodes().entrySet().stream().findFirst().get();
-        unvisited.put(entry.getKey(), entry.getValue());
+    private static int simpleGreedyUpperBound(CompactGraph graph, Colouring colouring) {
+        final int[] values = colouring.values();
+        final int[] used = new int[graph.maxDegree() + 1];
+        int stamp = 0;
+
+        //--- visit the nodes in breadth-first order, starting at the first node of every component
+        final int[] queue = new int[graph.size()];
+        final boolean[] queued = new boolean[graph.size()];
+        int head = 0;
+        int tail = 0;
 
         int max = 0;
-        while (!unvisited.isEmpty()){
-            // is this (too) slow?
-            Node node = unvisited.values().stream().findFirst().get();
-            unvisited.remove(node.getId());
-
-            //--- What colours does its neighbours have?
-            List<Node.Edge> edges = graph.getEdges(node.getId());
-            List<Integer> colours = edges.stream()
-                    .filter(edge -> edge.getTo().getValue() != -1)
-                    .map(edge -> edge.getTo().getValue())
-                    .collect(Collectors.toList());
-
-            //--- No colours -> first node being visited in the graph
-            if (colours.isEmpty()) {
-                node.setValue(0);
+        for(int start = 0; start < graph.size(); start++) {
+            if(queued[start]) {
+                continue;
             }
-            //--- At least one colour -> not the first node anymore
-            else {
-
-                //--- "Highest"  value/colour adjacent to the node
-                final int maxColour = colours.stream().max(Comparator.naturalOrder()).get();
-
-                int colour = 0; // Lowest value we can chose for a valid colour
+            queued[start] = true;
+            queue[tail++] = start;
+
+            while (head < tail) {
+                final int node = queue[head++];
+                stamp++;
+
+                //--- What colours does its neighbours have?
+                for(int i = 0; i < graph.degree(node); i++) {
+                    final int neighbour = graph.neighbour(node, i);
+                    if(values[neighbour] != Colouring.UNCOLOURED && values[neighbour] < used.length) {
+                        used[values[neighbour]] = stamp;
+                    }
+                    //--- call for neighbour nodes
+                    else if(!queued[neighbour]) {
+                        queued[neighbour] = true;
+                        queue[tail++] = neighbour;
+                    }
+                }
 
                 //--- try to ideally find an existing colour that we can reuse
-                while (colour <= maxColour) {
-                    if (!colours.contains(colour)) {
-                        break;
-                    }
+                int colour = 0;
+                while (colour < used.length && used[colour] == stamp) {
                     colour++;
                 }
 
-                node.setValue(colour);
+                values[node] = colour;
                 max = Math.max(max, colour);
-
             }
-
-            //--- call for neighbour nodes & figure out the "highest" value/colour used
-            for (Node.Edge edge : edges) {
-                if (edge.getTo().getValue() == -1) {
-                    Node e = edge.getTo();
-                    unvisited.put(e.getId(), e);
-                }
-            }
-
         }
 
         return max + 1;
@@ -344,77 +577,226 @@ public class ChromaticNumber {
 
     //--- LOWER BOUND --
 
-    private static int lowerBound(Graph graph) {
-        return bronKerbosch(graph, new ArrayList<>(), new ArrayList<>(graph.getNodes().values()), new ArrayList<>());
+    private static int lowerBound(Graph graph, Deadline deadline, Progress progress) {
+        //--- the size of the largest clique, every node of a clique needs its own colour
+        final MaxCliqueSolver solver = new MaxCliqueSolver(graph.compact(), parallelPool());
+        solver.setDeadline(deadline);
+        solver.setProgress(progress);
+
+        final long start = System.nanoTime();
+        final int lower = solver.solve().length;
+        progress.addPhaseTime(SolverStats.Phase.LOWER, System.nanoTime() - start);
+        return lower;
     }
-    private static int bronKerbosch(Graph graph, List<Node> _R, List<Node> _P, List<Node> _X) {
-        int max = Integer.MIN_VALUE;
-        if(_P.isEmpty() && _X.isEmpty()) {
-            max = Math.max(max, _R.size());
-        }
 
-        Iterator<Node> nodeIterator = _P.iterator();
-        while (nodeIterator.hasNext()) {
+    /**
+     * The pool the searches are split across, or null if there is only one core and they should run on the calling
+     * thread instead.
+     */
+    static ForkJoinPool parallelPool() {
+        return searchPool.getParallelism() > 1 ? searchPool : null;
+    }
 
-            //---
-            Node node = nodeIterator.next();
-            List<Node> neighbours = graph.getEdges(node.getId()).stream().map(Node.Edge::getTo).collect(Collectors.toList());
+    //--- Utility
 
-            //---
-            List<Node> dR = new ArrayList<>(_R);
-            dR.add(node);
+    /**
+     * Runs a computation with a time budget. The computation gets a {@link Deadline} and has to return its best result
+     * once it expires. If it has not returned shortly after that, it is interrupted and the fallback is returned instead,
+     * so a computation never keeps a thread busy after its budget is used up.
+     * @param task The computation.
+     * @param timeInNanoseconds The time budget.
+     * @param fallback The result if the computation does not finish in time.
+     */
+    public static Result timeBoundMethodExecution(Function<Deadline, Result> task, final long timeInNanoseconds, Supplier<Result> fallback) {
+        return timeBoundMethodExecution(Deadline.none(), task, timeInNanoseconds, fallback);
+    }
 
-            List<Node> dP = _P.stream().filter(neighbours::contains).collect(Collectors.toList());
-            List<Node> dX = _X.stream().filter(neighbours::contains).collect(Collectors.toList());
+    /**
+     * Same as {@link #timeBoundMethodExecution(Function, long, Supplier)}, but the computation also stops once the parent
+     * deadline expires.
+     */
+    private static Result timeBoundMethodExecution(Deadline parent, Function<Deadline, Result> task, final long timeInNanoseconds, Supplier<Result> fallback) {
+        final Deadline deadline = parent.child(timeInNanoseconds);
+        final Future<Result> future = boundExecutor.submit(() -> task.apply(deadline));
+        try {
+            return future.get(timeInNanoseconds + DEADLINE_GRACE, TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+            return fallback.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return fallback.get();
+        } catch (ExecutionException e) {
+            throw new IllegalStateException(e.getCause());
+        } finally {
+            deadline.cancel();
+            future.cancel(true);
+        }
+    }
 
-            max = Math.max(bronKerbosch(graph, dR, dP, dX), max);
+    /**
+     * Runs the greedy upper bound, the heuristic portfolio, the clique lower bound and DSATUR one after the other, publishing their improvements
+     * while they run. All of them share the deadline, which is also cancelled as soon as the bounds meet.
+     */
+    private static class AnytimePublisher extends SubmissionPublisher<Result> {
+
+        private final Graph graph;
+        private final long timeInNanoseconds;
+        private final AtomicBoolean started = new AtomicBoolean(false);
+        private final Progress progress = new Progress();
+
+        private Deadline deadline;
+        private int lower = 0;
+        private int upper = Integer.MAX_VALUE;
+        private Colouring solution;
+
+        AnytimePublisher(Graph graph, long timeInNanoseconds) {
+            this.graph = graph;
+            this.timeInNanoseconds = timeInNanoseconds;
+        }
 
-            //---
-            nodeIterator.remove();
-            _X.add(node);
+        @Override
+        public void subscribe(Flow.Subscriber<? super Result> subscriber) {
+            super.subscribe(subscriber);
+            if(this.started.compareAndSet(false, true)) {
+                this.deadline = Deadline.after(this.timeInNanoseconds);
+                boundExecutor.execute(this::run);
+            }
         }
 
-        return max;
-    }
+        private void run() {
+            SolverMetrics.get().started();
+            SolverStats stats = null;
+            try {
+                final CompactGraph compact = this.graph.compact();
+                this.improve(0, greedyUpperBound(this.graph, this.progress).getSolution());
+                this.improve(0, upperBound(this.graph, this.deadline, this.progress).getSolution());
+
+                if(!this.deadline.isExpired()) {
+                    final MaxCliqueSolver clique = new MaxCliqueSolver(compact, parallelPool());
+                    clique.setDeadline(this.deadline);
+                    clique.setProgress(this.progress);
+                    clique.setListener(size -> this.improve(size, null));
+                    clique.solve();
+                }
 
-    //--- Utility
-    public static Result timeBoundMethodExecution(MethodRunnable runnable, final long timeInMilliseconds) {
-        Thread thread = new Thread(runnable);
-        thread.start();
-        long time = System.nanoTime();
-        long countdown = time + timeInMilliseconds;
+                if(!this.deadline.isExpired()) {
+                    final DsaturSolver dsatur = new DsaturSolver(compact, parallelPool());
+                    dsatur.setDeadline(this.deadline);
+                    dsatur.setProgress(this.progress);
+                    dsatur.setListener(colouring -> this.improve(0, colouring));
+                    final int lower;
+                    final Colouring incumbent;
+                    synchronized (this) {
+                        lower = this.lower;
+                        incumbent = this.solution;
+                    }
+                    final Colouring colouring = dsatur.solve(lower, incumbent);
+                    //--- a finished search proves that its colouring is optimal
+                    this.improve(dsatur.isOptimal() ? colouring.countColours() : dsatur.getLowerBound(), colouring);
+                }
 
-        // TODO replace busy waiting
-        while (!runnable.getResult().isReady() && time < countdown) {
-            System.out.print(""); //for some reason this code does not work without this. is there maybe some sort of byte-code optimisation going on removing this type of loop
-            time = System.nanoTime();
+                stats = this.progress.snapshot();
+                synchronized (this) {
+                    final Result result = new Result(this.solution, this.lower == this.upper ? this.upper : -1, this.lower, this.upper, true);
+                    result.stats = stats;
+                    this.submit(result);
+                }
+                this.close();
+            } catch (RuntimeException e) {
+                this.closeExceptionally(e);
+            } finally {
+                SolverMetrics.get().finished(stats != null ? stats : this.progress.snapshot());
+            }
         }
-        //thread.interrupt();
 
-        return runnable.getResult();
+        /**
+         * Publishes the new bounds, if they are better than the known ones.
+         * @param lower A lower bound, or 0.
+         * @param colouring A complete colouring, or null.
+         */
+        private synchronized void improve(int lower, Colouring colouring) {
+            boolean improved = false;
+            if(lower > this.lower) {
+                this.lower = lower;
+                improved = true;
+            }
+            if(colouring != null && colouring.countColours() < this.upper) {
+                this.solution = colouring;
+                this.upper = colouring.countColours();
+                improved = true;
+            }
+
+            if(this.lower >= this.upper) {
+                this.deadline.cancel();
+            } else if(improved) {
+                //--- never blocks, a subscriber that falls behind drops the item
+                this.offer(new Result(this.solution, -1, this.lower, this.upper, false), null);
+            }
+        }
 
     }
 
-    private static abstract class MethodRunnable implements Runnable {
+    /**
+     * A computation running in the background, see {@link #computeAsync(Type, Graph, Consumer)}.
+     */
+    public static class Handle {
 
-        private Result result;
+        public enum Status {
+            RUNNING,
+            DONE,
+            CANCELLED,
+            FAILED
+        }
 
-        @Override
-        public abstract void run();
+        //--- every part of the computation checks this deadline, or a child of it
+        private final Deadline deadline = Deadline.none();
+        private final Progress progress = new Progress();
+        private final long start = System.nanoTime();
+        private volatile long end = -1;
+        private CompletableFuture<Result> future;
+
+        private Handle() {}
+
+        /**
+         * Stops the computation and all of its helper tasks. The solvers check for cancellation regularly, so they stop
+         * within a few milliseconds, the consumer is not called anymore.
+         */
+        public void cancel() {
+            this.deadline.cancel();
+            //--- in case it has not started yet
+            this.future.cancel(false);
+        }
 
-        public void setResult(Result result) {
-            this.result = result;
+        public Status getStatus() {
+            if(this.deadline.isCancelled()) {
+                return Status.CANCELLED;
+            }
+            if(!this.future.isDone()) {
+                return Status.RUNNING;
+            }
+            return this.future.isCompletedExceptionally() ? Status.FAILED : Status.DONE;
+        }
+
+        /**
+         * The time since the computation has been started, or the time it took, if it has finished, in nanoseconds.
+         */
+        public long getElapsedNanos() {
+            final long end = this.end;
+            return (end == -1 ? System.nanoTime() : end) - this.start;
         }
 
-        public Result getResult() {
-            return this.result;
+        /**
+         * The live counters of the computation: the explored branches and the best known bounds.
+         */
+        public Progress getProgress() {
+            return this.progress;
         }
 
     }
 
     public static class Result {
 
-        private Graph solution;
+        private Colouring solution;
 
         private int exact = -1;
         private int upper = -1;
@@ -422,7 +804,9 @@ public class ChromaticNumber {
 
         private boolean isReady = false;
 
-        public Result(Graph solution, int exact, int lower, int upper, boolean isReady) {
+        private SolverStats stats;
+
+        public Result(Colouring solution, int exact, int lower, int upper, boolean isReady) {
             this.solution = solution;
             this.exact = exact;
             this.lower = lower;
@@ -430,7 +814,11 @@ public class ChromaticNumber {
             this.isReady = isReady;
         }
 
-        public Graph getSolution() {
+        /**
+         * The best colouring found, indexed by the indices of {@link Graph#compact()}.
+         * @return The colouring, or null, if no colouring has been computed.
+         */
+        public Colouring getSolution() {
             return solution;
         }
 
@@ -454,6 +842,14 @@ public class ChromaticNumber {
             return upper;
         }
 
+        /**
+         * The counters of the computation that produced this result.
+         * @return The counters, or null, if the result is not the final result of a computation.
+         */
+        public SolverStats getStats() {
+            return stats;
+        }
+
     }
 
 }
@@ -2,6 +2,8 @@ package edu.um.chromaster;
 
 import edu.um.chromaster.event.EventHandler;
 import edu.um.chromaster.graph.Graph;
+import edu.um.chromaster.graph.GraphIO;
+import edu.um.chromaster.graph.GraphStore;
 import edu.um.chromaster.graph.RandomGraph;
 import edu.um.chromaster.gui.GraphGameElement;
 import edu.um.chromaster.modes.FirstGameMode;
@@ -14,17 +16,22 @@ import javafx.scene.SceneAntialiasing;
 import javafx.scene.layout.StackPane;
 import javafx.stage.Stage;
 
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
 import java.util.Random;
 import java.util.stream.IntStream;
 
 public class Game extends Application {
 
-    public final static Random random = new Random(1); //TODO same seed to ease debugging efforts
+    public final static Random random = RandomGraph.RANDOM;
 
     private final static EventHandler eventHandler = new EventHandler();
     private static Game instance;
 
     private GameMode gameMode = null;
+    private GraphGameElement graphGameElement = null;
 
     public static void main(String[] args) {
         launch(args);
@@ -46,19 +53,23 @@ public class Game extends Application {
     public void start(Stage primaryStage) {
         instance = this;
 
-        RandomGraph g = new RandomGraph();
-        g.setLIMIT(20);
-        g.setPMedium();
-        g.setNada(true);
-        System.out.println(g.getProbability());
-        Graph graph = g.getGraph();
+        //--- a pre-generated graph can be passed as the first argument, either as a snapshot or as a DIMACS .col file
+        Graph graph = this.loadGraph();
+        if(graph == null) {
+            RandomGraph g = new RandomGraph();
+            g.setLIMIT(20);
+            g.setPMedium();
+            g.setNada(true);
+            System.out.println(g.getProbability());
+            graph = g.getGraph();
+        }
 
 
 
         this.gameMode = new ThirdGameMode(graph);
 
-        GraphGameElement graphGameElement = new GraphGameElement(primaryStage, graph, gameMode);
-        Scene scene = new Scene(graphGameElement, -1, -1, true, SceneAntialiasing.BALANCED);
+        this.graphGameElement = new GraphGameElement(primaryStage, graph, gameMode);
+        Scene scene = new Scene(this.graphGameElement, -1, -1, true, SceneAntialiasing.BALANCED);
 
 
         // TODO testing hint functions
@@ -78,4 +89,26 @@ public class Game extends Application {
 
     }
 
+    @Override
+    public void stop() {
+        //--- the layout threads of the graph are not daemons, they would keep the application alive
+        if(this.graphGameElement != null) {
+            this.graphGameElement.dispose();
+        }
+    }
+
+    private Graph loadGraph() {
+        List<String> arguments = this.getParameters().getUnnamed();
+        if(arguments.isEmpty()) {
+            return null;
+        }
+        Path path = Paths.get(arguments.get(0));
+        try {
+            return path.toString().endsWith(".col") ? GraphIO.read(path) : GraphStore.load(path);
+        } catch (IOException e) {
+            e.printStackTrace();
+            return null;
+        }
+    }
+
 }
@@ -1,7 +1,9 @@
 package edu.um.chromaster;
 
+import edu.um.chromaster.graph.CompactGraph;
 import edu.um.chromaster.graph.Graph;
 import edu.um.chromaster.graph.Node;
+import edu.um.chromaster.gui.NodeMeta;
 
 public class GraphDrawer {
 
@@ -10,24 +12,24 @@ public class GraphDrawer {
     public static void circle(Graph graph,double width, double height){
         double angle = 2*Math.PI/graph.getNodes().size();
         graph.getNodes().forEach((id, node) -> {
-            node.getMeta().x(width/2 + ((width-200)/2)*Math.cos(id*angle));
-            node.getMeta().y(height/2 + ((height-100)/2)*Math.sin(id*angle));
+            NodeMeta.of(node).x(width/2 + ((width-200)/2)*Math.cos(id*angle));
+            NodeMeta.of(node).y(height/2 + ((height-100)/2)*Math.sin(id*angle));
         });
     }
 
     public static void shell(Graph graph,double width, double height){
         double angle = 2*Math.PI/graph.getNodes().size();
         graph.getNodes().forEach((id, node) -> {
-            node.getMeta().x(width/2 + (((width-200)/2) - ((width-200)/2) * id/graph.getNodes().size())*Math.cos(id*angle));
-            node.getMeta().y(height/2 + (((height-100)/2) - ((height-200)/2) * id/graph.getNodes().size())*Math.sin(id*angle));
+            NodeMeta.of(node).x(width/2 + (((width-200)/2) - ((width-200)/2) * id/graph.getNodes().size())*Math.cos(id*angle));
+            NodeMeta.of(node).y(height/2 + (((height-100)/2) - ((height-200)/2) * id/graph.getNodes().size())*Math.sin(id*angle));
         });
     }
 
     public static void archemedianSprial(Graph graph,double width, double height){
         double angle = 4*Math.PI/graph.getNodes().size();
         graph.getNodes().forEach((id, node) -> {
-            node.getMeta().x(width/2 + (((width-200)/2) - ((width-200)/2) * id/graph.getNodes().size())*Math.cos(id*angle));
-            node.getMeta().y(height/2 + (((height-100)/2) - ((height-200)/2) * id/graph.getNodes().size())*Math.sin(id*angle));
+            NodeMeta.of(node).x(width/2 + (((width-200)/2) - ((width-200)/2) * id/graph.getNodes().size())*Math.cos(id*angle));
+            NodeMeta.of(node).y(height/2 + (((height-100)/2) - ((height-200)/2) * id/graph.getNodes().size())*Math.sin(id*angle));
         });
     }
 
@@ -35,8 +37,8 @@ public class GraphDrawer {
         double angle = 2*Math.PI/graph.getNodes().size();
         double r = width;
         graph.getNodes().forEach((id, node) -> {
-            node.getMeta().x(width/2 + r*Math.sin(5*angle)*Math.cos(id*angle));
-            node.getMeta().y(height/2 + r*Math.sin(5*angle)*Math.sin(id*angle));
+            NodeMeta.of(node).x(width/2 + r*Math.sin(5*angle)*Math.cos(id*angle));
+            NodeMeta.of(node).y(height/2 + r*Math.sin(5*angle)*Math.sin(id*angle));
         });
     }
 
@@ -45,8 +47,8 @@ public class GraphDrawer {
         double a = 200;
         int k = 2;
         graph.getNodes().forEach((id, node) -> {
-            node.getMeta().x(width/2 + a * Math.cos(k*angle) * Math.cos(angle));
-            node.getMeta().y(height/2 + a * Math.cos(k*angle) * Math.sin(angle));
+            NodeMeta.of(node).x(width/2 + a * Math.cos(k*angle) * Math.cos(angle));
+            NodeMeta.of(node).y(height/2 + a * Math.cos(k*angle) * Math.sin(angle));
         });
     }
 
@@ -54,7 +56,7 @@ public class GraphDrawer {
         boolean change = true;
         while (change) {
             for (Node node : graph.getNodes().values()) {
-                Node.Meta m = node.getMeta();
+                NodeMeta m = NodeMeta.of(node);
                 m.x(m.x() * 0.9D);
                 m.y(m.y() * 0.9D);
 
@@ -63,8 +65,8 @@ public class GraphDrawer {
         }
 
         graph.getNodes().forEach((k, node) -> {
-            node.getMeta().x(node.getMeta().x() + width / 2);
-            node.getMeta().y(node.getMeta().y() + height / 2);
+            NodeMeta.of(node).x(NodeMeta.of(node).x() + width / 2);
+            NodeMeta.of(node).y(NodeMeta.of(node).y() + height / 2);
         });
 
         /*{
@@ -80,15 +82,24 @@ public class GraphDrawer {
 
     public static void banana(Graph graph, double width, double height) {
 
-        graph.getNodes().forEach((id, node) -> {
-            Node.Meta m = node.getMeta();
+        final CompactGraph compact = graph.compact();
+        final int[] offsets = compact.offsets();
+        final int[] targets = compact.targets();
+
+        //--- resolve the meta objects once, the loops below only work on indices
+        final NodeMeta[] metas = new NodeMeta[compact.size()];
+        for(int v = 0; v < metas.length; v++) {
+            metas[v] = NodeMeta.of(graph.getNodeByIndex(v));
+        }
+
+        for(NodeMeta m : metas) {
             m.x(m.x() + width / 2);
             m.y(m.y() + height / 2);
-        });
+        }
 
         final double area = width * height;
         double maxDisplacement = Math.sqrt(10000 * area) / 10;
-        final double k = Math.sqrt(area / graph.getNodes().size());
+        final double k = Math.sqrt(area / metas.length);
         final int iterations = 100;
         final double gravity = 10;
         final double speed_divisior = 800;
@@ -96,11 +107,11 @@ public class GraphDrawer {
 
         for(int i = 0; i < iterations; i++) {
 
-            for (Node a : graph.getNodes().values()) {
-                Node.Meta aMeta = a.getMeta();
-                for (Node b : graph.getNodes().values()) {
+            for (int a = 0; a < metas.length; a++) {
+                NodeMeta aMeta = metas[a];
+                for (int b = 0; b < metas.length; b++) {
                     if(a != b) {
-                        Node.Meta bMeta = b.getMeta();
+                        NodeMeta bMeta = metas[b];
                         double xDistance = aMeta.x() - bMeta.x();
                         double yDistance = aMeta.y() - bMeta.y();
                         double distance = Math.sqrt(Math.pow(xDistance, 2) + Math.pow(yDistance, 2));
@@ -114,10 +125,10 @@ public class GraphDrawer {
                 }
             }
 
-            graph.getEdges().values().forEach(edgeList -> {
-                edgeList.forEach((to, edge) -> {
-                    Node.Meta aMeta = edge.getFrom().getMeta();
-                    Node.Meta bMeta = edge.getTo().getMeta();
+            for(int from = 0; from < metas.length; from++) {
+                NodeMeta aMeta = metas[from];
+                for(int e = offsets[from]; e < offsets[from + 1]; e++) {
+                    NodeMeta bMeta = metas[targets[e]];
 
                     double xDistance = aMeta.x() - bMeta.x();
                     double yDistance = aMeta.y() - bMeta.y();
@@ -130,25 +141,22 @@ public class GraphDrawer {
                         bMeta.displacementY += xDistance / distance * attractiveForce;
                         bMeta.displacementY += yDistance / distance * attractiveForce;
                     }
-                });
-            });
+                }
+            }
 
-            graph.getNodes().forEach((id, node) -> {
-                Node.Meta meta = node.getMeta();
+            for(NodeMeta meta : metas) {
                 double distance = Math.sqrt(Math.pow(meta.x(), 2) + Math.pow(meta.y(), 2));
                 double gravityForce = 0.01F * k * gravity * distance;
                 meta.displacementX = gravityForce * meta.x() / distance;
                 meta.displacementY = gravityForce * meta.y() / distance;
-            });
+            }
 
-            graph.getNodes().forEach((id, node) -> {
-                Node.Meta meta = node.getMeta();
+            for(NodeMeta meta : metas) {
                 meta.displacementX *= speed / speed_divisior;
                 meta.displacementY *= speed / speed_divisior;
-            });
+            }
 
-            graph.getNodes().forEach((id, node) -> {
-                Node.Meta meta = node.getMeta();
+            for(NodeMeta meta : metas) {
                 double xDistance = meta.x();
                 double yDistance = meta.y();
                 double distance = Math.sqrt(Math.pow(meta.x(), 2) + Math.pow(meta.y(), 2));
@@ -158,13 +166,12 @@ public class GraphDrawer {
                     meta.x(meta.x()+ xDistance / distance * limitedDistance);
                     meta.y(meta.y() + yDistance / distance * limitedDistance);
                 }
-            });
+            }
         }
 
         int i = 100;
         while (i > 0) {
-            graph.getNodes().forEach((id, node) -> {
-                Node.Meta m = node.getMeta();
+            for(NodeMeta m : metas) {
                 if (m.x() * 1.2 > -width / 2 && m.x() * 1.2 < width / 2) {
                     m.x(m.x() * 1.2);
                     m.y(m.y() * 1.2);
@@ -181,7 +188,7 @@ public class GraphDrawer {
                     m.y(m.y() * 0.8);
                 }
 
-            });
+            }
             i--;
         }
 
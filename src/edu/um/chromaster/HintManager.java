@@ -1,15 +1,21 @@
 package edu.um.chromaster;
 
+import edu.um.chromaster.graph.BitAdjacency;
+import edu.um.chromaster.graph.Colouring;
+import edu.um.chromaster.graph.CompactGraph;
 import edu.um.chromaster.graph.Graph;
 import edu.um.chromaster.graph.Node;
+import edu.um.chromaster.solver.MaxCliqueSolver;
 
-import java.awt.*;
-import java.util.*;
+import java.util.ArrayList;
 import java.util.List;
-import java.util.stream.Collectors;
 
 public class HintManager {
 
+    //--- only small, dense graphs are worth counting with the bitset adjacency matrix, it needs n * n / 8 bytes
+    private final static int MATRIX_NODES = 1 << 12;
+    private final static double DENSE_THRESHOLD = 0.1;
+
     private HintManager() {}
 
     public static int chromaticNumber(Graph graph) {
@@ -17,53 +23,83 @@ public class HintManager {
     }
 
     public static Node highestDegree(Graph graph) {
-        return graph.getNode(graph.getEdges().entrySet().stream().max(Comparator.comparingInt(o -> o.getValue().size())).get().getKey());
+        final CompactGraph compact = graph.compact();
+        int best = 0;
+        for(int v = 1; v < compact.size(); v++) {
+            if(compact.degree(v) > compact.degree(best)) {
+                best = v;
+            }
+        }
+        return graph.getNodeByIndex(best);
     }
 
     public static Node maxNeighboursColoured(Graph graph) {
-        return graph.getNode(graph.getEdges().entrySet().stream()
-                .max(Comparator.comparingInt(o -> (int) o.getValue().values().stream().filter(e -> e.getTo().getValue() != -1).count())).get().getKey());
-    }
-
-    public static List<Node> cliqueDetector9000(Graph graph) {
-        List<List<Node>> cliques = new LinkedList<>();
-        cliqueDetector9000(graph, cliques, new ArrayList<>(), new ArrayList<>(graph.getNodes().values()), new ArrayList<>());
-        return cliques.stream().max(Comparator.comparingInt(List::size)).get();
-    }
+        final CompactGraph compact = graph.compact();
+        final Colouring colouring = graph.getColouring();
+        if(compact.size() <= MATRIX_NODES && compact.density() >= DENSE_THRESHOLD) {
+            return graph.getNodeByIndex(maxNeighboursColoured(compact.bitAdjacency(), colouring));
+        }
 
-    public static List<Integer> neighbourColors(Graph graph,Node node){
-        List<Integer> tmp = new ArrayList<Integer>();
-        graph.getEdges().get(node.getId()).values().forEach(edge -> tmp.add(edge.getTo().getValue()));
-        return tmp;
+        int best = 0;
+        int bestCount = -1;
+        for(int v = 0; v < compact.size(); v++) {
+            int count = 0;
+            for(int i = 0; i < compact.degree(v); i++) {
+                if(colouring.get(compact.neighbour(v, i)) != Colouring.UNCOLOURED) {
+                    count++;
+                }
+            }
+            if(count > bestCount) {
+                best = v;
+                bestCount = count;
+            }
+        }
+        return graph.getNodeByIndex(best);
     }
 
-    private static List<List<Node>> cliqueDetector9000(Graph graph, List<List<Node>> cliques, List<Node> _R, List<Node> _P, List<Node> _X) {
-        if (_P.isEmpty() && _X.isEmpty()) {
-            cliques.add(_R);
+    /**
+     * Same as {@link #maxNeighboursColoured(Graph)}, but counts the coloured neighbours 64 nodes at a time.
+     * @return The index of the node.
+     */
+    private static int maxNeighboursColoured(BitAdjacency adjacency, Colouring colouring) {
+        final long[] coloured = adjacency.newSet();
+        for(int v = 0; v < adjacency.size(); v++) {
+            if(colouring.get(v) != Colouring.UNCOLOURED) {
+                BitAdjacency.add(coloured, v);
+            }
         }
 
-        Iterator<Node> nodeIterator = _P.iterator();
-        while (nodeIterator.hasNext()) {
-
-            //---
-            Node node = nodeIterator.next();
-            java.util.List<Node> neighbours = graph.getEdges(node.getId()).stream().map(Node.Edge::getTo).collect(Collectors.toList());
-
-            //---
-            java.util.List<Node> dR = new ArrayList<>(_R);
-            dR.add(node);
-
-            java.util.List<Node> dP = _P.stream().filter(neighbours::contains).collect(Collectors.toList());
-            java.util.List<Node> dX = _X.stream().filter(neighbours::contains).collect(Collectors.toList());
+        int best = 0;
+        int bestCount = -1;
+        for(int v = 0; v < adjacency.size(); v++) {
+            final int count = adjacency.intersectionCount(v, coloured);
+            if(count > bestCount) {
+                best = v;
+                bestCount = count;
+            }
+        }
+        return best;
+    }
 
-            cliqueDetector9000(graph, cliques, dR, dP, dX);
+    public static List<Node> cliqueDetector9000(Graph graph) {
+        final int[] clique = new MaxCliqueSolver(graph.compact(), ChromaticNumber.parallelPool()).solve();
 
-            //---
-            nodeIterator.remove();
-            _X.add(node);
+        List<Node> nodes = new ArrayList<>(clique.length);
+        for(int index : clique) {
+            nodes.add(graph.getNodeByIndex(index));
         }
+        return nodes;
+    }
 
-        return cliques;
+    public static List<Integer> neighbourColors(Graph graph,Node node){
+        final CompactGraph compact = graph.compact();
+        final Colouring colouring = graph.getColouring();
+        final int index = node.getIndex();
+        List<Integer> tmp = new ArrayList<Integer>(compact.degree(index));
+        for(int i = 0; i < compact.degree(index); i++) {
+            tmp.add(colouring.get(compact.neighbour(index, i)));
+        }
+        return tmp;
     }
 
 }
@@ -0,0 +1,303 @@
+package edu.um.chromaster.graph;
+
+/**
+ * An immutable adjacency matrix view of a {@link CompactGraph}, where every row is stored as a bitset of 64-bit words.
+ *
+ * The matrix is symmetric: 'a' and 'b' are considered adjacent if there is an arc in either direction. It needs
+ * n * n / 8 bytes, so it is meant for small or dense graphs, where it allows to test adjacency in O(1) and to intersect
+ * neighbourhoods 64 nodes at a time. Sets of nodes are represented as long arrays of length {@link #words()}, the
+ * static helpers in this class can be used to work with them.
+ */
+public final class BitAdjacency {
+
+    private final int size;
+    private final int words;
+    private final long[] matrix;
+
+    private BitAdjacency(int size, int words, long[] matrix) {
+        this.size = size;
+        this.words = words;
+        this.matrix = matrix;
+    }
+
+    /**
+     * Builds the matrix for the provided graph.
+     * @param graph The graph.
+     * @return Never null.
+     * @throws IllegalArgumentException If the graph has more than about 370000 nodes.
+     */
+    static BitAdjacency of(CompactGraph graph) {
+        final int size = graph.size();
+        final int words = wordsFor(size);
+        final long[] matrix = newMatrix(size, words);
+
+        final int[] offsets = graph.offsets();
+        final int[] targets = graph.targets();
+        for(int from = 0; from < size; from++) {
+            for(int i = offsets[from]; i < offsets[from + 1]; i++) {
+                final int to = targets[i];
+                matrix[from * words + (to >>> 6)] |= 1L << to;
+                matrix[to * words + (from >>> 6)] |= 1L << from;
+            }
+        }
+
+        return new BitAdjacency(size, words, matrix);
+    }
+
+    /**
+     * Builds the matrix of the subgraph induced by some nodes of the provided graph, node 'i' of the matrix is node
+     * nodes[i] of the graph. With all nodes of the graph this is a renumbered matrix of the whole graph, built without
+     * the one of {@link CompactGraph#bitAdjacency()}.
+     * @param graph The graph.
+     * @param nodes The nodes of the subgraph, without duplicates.
+     * @param count The amount of nodes in 'nodes'.
+     * @param local For every node of the graph its index in 'nodes', or -1 if it is not part of the subgraph.
+     * @return Never null.
+     * @throws IllegalArgumentException If the subgraph has more than about 370000 nodes.
+     */
+    public static BitAdjacency of(CompactGraph graph, int[] nodes, int count, int[] local) {
+        final int words = wordsFor(count);
+        final long[] matrix = newMatrix(count, words);
+
+        final int[] offsets = graph.offsets();
+        final int[] targets = graph.targets();
+        for(int from = 0; from < count; from++) {
+            final int node = nodes[from];
+            for(int i = offsets[node]; i < offsets[node + 1]; i++) {
+                final int to = local[targets[i]];
+                if(to >= 0) {
+                    matrix[from * words + (to >>> 6)] |= 1L << to;
+                    matrix[to * words + (from >>> 6)] |= 1L << from;
+                }
+            }
+        }
+
+        return new BitAdjacency(count, words, matrix);
+    }
+
+    /**
+     * Creates a copy of this matrix with the nodes renumbered, node 'i' of the copy is node order[i] of this matrix.
+     * Algorithms that scan sets in ascending order can use this to visit the nodes in a specific order.
+     * @param order A permutation of [0..{@link #size()}).
+     * @return Never null.
+     */
+    public BitAdjacency permute(int[] order) {
+        final int[] position = new int[this.size];
+        for(int i = 0; i < this.size; i++) {
+            position[order[i]] = i;
+        }
+
+        final long[] matrix = newMatrix(this.size, this.words);
+        for(int i = 0; i < this.size; i++) {
+            final int offset = order[i] * this.words;
+            for(int node = nextSetBit(this.matrix, offset, this.words, 0); node != -1; node = nextSetBit(this.matrix, offset, this.words, node + 1)) {
+                final int to = position[node];
+                matrix[i * this.words + (to >>> 6)] |= 1L << to;
+            }
+        }
+        return new BitAdjacency(this.size, this.words, matrix);
+    }
+
+    /**
+     * The amount of nodes.
+     */
+    public int size() {
+        return this.size;
+    }
+
+    /**
+     * The amount of 64-bit words used for every row, and for every node set.
+     */
+    public int words() {
+        return this.words;
+    }
+
+    /**
+     * Checks if 'a' and 'b' are adjacent.
+     */
+    public boolean isAdjacent(int a, int b) {
+        return (this.matrix[a * this.words + (b >>> 6)] & (1L << b)) != 0;
+    }
+
+    /**
+     * The amount of neighbours of a node.
+     */
+    public int degree(int node) {
+        int count = 0;
+        for(int w = 0, offset = node * this.words; w < this.words; w++) {
+            count += Long.bitCount(this.matrix[offset + w]);
+        }
+        return count;
+    }
+
+    /**
+     * Writes the neighbourhood of a node into the provided set.
+     * @param node The node.
+     * @param out The set to write to, will be overwritten.
+     */
+    public void neighbours(int node, long[] out) {
+        System.arraycopy(this.matrix, node * this.words, out, 0, this.words);
+    }
+
+    /**
+     * Computes the intersection of a set with the neighbourhood of a node: out = set &amp; N(node).
+     * @param node The node.
+     * @param set The set to intersect with.
+     * @param out The set to write the result to, may be the same array as 'set'.
+     * @return The amount of nodes in the result.
+     */
+    public int intersect(int node, long[] set, long[] out) {
+        int count = 0;
+        for(int w = 0, offset = node * this.words; w < this.words; w++) {
+            out[w] = set[w] & this.matrix[offset + w];
+            count += Long.bitCount(out[w]);
+        }
+        return count;
+    }
+
+    /**
+     * Counts the nodes of a set that are adjacent to the provided node, without allocating.
+     */
+    public int intersectionCount(int node, long[] set) {
+        int count = 0;
+        for(int w = 0, offset = node * this.words; w < this.words; w++) {
+            count += Long.bitCount(set[w] & this.matrix[offset + w]);
+        }
+        return count;
+    }
+
+    /**
+     * Removes all neighbours of a node from a set: set = set &amp; ~N(node).
+     */
+    public void removeNeighbours(int node, long[] set) {
+        for(int w = 0, offset = node * this.words; w < this.words; w++) {
+            set[w] &= ~this.matrix[offset + w];
+        }
+    }
+
+    /**
+     * Checks if at least one node of the set is adjacent to the provided node.
+     */
+    public boolean intersects(int node, long[] set) {
+        for(int w = 0, offset = node * this.words; w < this.words; w++) {
+            if((set[w] & this.matrix[offset + w]) != 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Creates an empty node set for this matrix.
+     */
+    public long[] newSet() {
+        return new long[this.words];
+    }
+
+    /**
+     * Creates a node set containing all nodes.
+     */
+    public long[] fullSet() {
+        final long[] set = new long[this.words];
+        for(int v = 0; v < this.size; v++) {
+            add(set, v);
+        }
+        return set;
+    }
+
+    //--- Utility
+
+    /**
+     * Allocates the rows of a matrix. The rows are indexed with ints, so the matrix is limited to 2^31 - 1 words, about
+     * 370000 nodes.
+     * @throws IllegalArgumentException If the matrix has too many words.
+     */
+    private static long[] newMatrix(int size, int words) {
+        try {
+            return new long[Math.multiplyExact(size, words)];
+        } catch (ArithmeticException e) {
+            throw new IllegalArgumentException("A bitset adjacency matrix of " + size + " nodes does not fit into an array.");
+        }
+    }
+
+    /**
+     * The amount of words required to store a set of 'size' nodes.
+     */
+    public static int wordsFor(int size) {
+        return (size + 63) >>> 6;
+    }
+
+    public static void add(long[] set, int node) {
+        set[node >>> 6] |= 1L << node;
+    }
+
+    public static void remove(long[] set, int node) {
+        set[node >>> 6] &= ~(1L << node);
+    }
+
+    public static boolean contains(long[] set, int node) {
+        return (set[node >>> 6] & (1L << node)) != 0;
+    }
+
+    public static boolean isEmpty(long[] set) {
+        for(long word : set) {
+            if(word != 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * The amount of nodes in the set.
+     */
+    public static int cardinality(long[] set) {
+        int count = 0;
+        for(long word : set) {
+            count += Long.bitCount(word);
+        }
+        return count;
+    }
+
+    /**
+     * Returns the first node in the set that is greater than or equal to 'from'.
+     * @return The node, or -1 if there is none.
+     */
+    public static int nextSetBit(long[] set, int from) {
+        int w = from >>> 6;
+        if(w >= set.length) {
+            return -1;
+        }
+        long word = set[w] & (-1L << from);
+        while (true) {
+            if(word != 0) {
+                return (w << 6) + Long.numberOfTrailingZeros(word);
+            }
+            if(++w == set.length) {
+                return -1;
+            }
+            word = set[w];
+        }
+    }
+
+    /**
+     * Like {@link #nextSetBit(long[], int)}, for a set stored at 'offset' in a larger array, e.g. a row of the matrix.
+     */
+    private static int nextSetBit(long[] array, int offset, int words, int from) {
+        int w = from >>> 6;
+        if(w >= words) {
+            return -1;
+        }
+        long word = array[offset + w] & (-1L << from);
+        while (true) {
+            if(word != 0) {
+                return (w << 6) + Long.numberOfTrailingZeros(word);
+            }
+            if(++w == words) {
+                return -1;
+            }
+            word = array[offset + w];
+        }
+    }
+
+}
@@ -0,0 +1,137 @@
+package edu.um.chromaster.graph;
+
+import java.util.Arrays;
+import java.util.stream.IntStream;
+
+/**
+ * A colouring of the nodes of a graph, stored as one int per node and indexed by the dense node index of the
+ * {@link CompactGraph}. Uncoloured nodes have the value {@link #UNCOLOURED}.
+ *
+ * The colouring is kept separately from the topology, so any number of solvers, the hints and the game modes can work
+ * on the same {@link Graph} at the same time, each with their own colouring. A colouring is not thread-safe, every
+ * thread should work on its own instance, use {@link #copy()} to hand a colouring over.
+ */
+public final class Colouring {
+
+    public final static int UNCOLOURED = -1;
+
+    private final int[] values;
+
+    /**
+     * Creates a new colouring where all nodes are uncoloured.
+     * @param size The amount of nodes, see {@link CompactGraph#size()}.
+     */
+    public Colouring(int size) {
+        this.values = new int[size];
+        Arrays.fill(this.values, UNCOLOURED);
+    }
+
+    private Colouring(int[] values) {
+        this.values = values;
+    }
+
+    /**
+     * Creates a colouring that uses the provided array as its storage, the array is not copied.
+     * @param values The colour of every node, indexed by the dense node index.
+     * @return Never null.
+     */
+    public static Colouring wrap(int[] values) {
+        return new Colouring(values);
+    }
+
+    /**
+     * The amount of nodes.
+     */
+    public int size() {
+        return this.values.length;
+    }
+
+    /**
+     * Returns the colour of a node, or {@link #UNCOLOURED}.
+     * @param index The dense index of the node.
+     */
+    public int get(int index) {
+        return this.values[index];
+    }
+
+    /**
+     * Sets the colour of a node.
+     * @param index The dense index of the node.
+     * @param colour The colour, or {@link #UNCOLOURED}.
+     */
+    public void set(int index, int colour) {
+        this.values[index] = colour;
+    }
+
+    /**
+     * Marks all nodes as uncoloured.
+     */
+    public void clear() {
+        Arrays.fill(this.values, UNCOLOURED);
+    }
+
+    /**
+     * The raw storage, indexed by the dense node index. Changes to the array are reflected in the colouring.
+     */
+    public int[] values() {
+        return this.values;
+    }
+
+    public IntStream stream() {
+        return Arrays.stream(this.values);
+    }
+
+    /**
+     * Checks if every node has a colour.
+     */
+    public boolean isComplete() {
+        for(int value : this.values) {
+            if(value == UNCOLOURED) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Checks that no arc of the graph connects two nodes with the same colour, uncoloured nodes never conflict.
+     * @param graph The graph this colouring belongs to.
+     */
+    public boolean isConflictFree(CompactGraph graph) {
+        final int[] offsets = graph.offsets();
+        final int[] targets = graph.targets();
+        for(int v = 0; v < this.values.length; v++) {
+            if(this.values[v] == UNCOLOURED) {
+                continue;
+            }
+            for(int i = offsets[v]; i < offsets[v + 1]; i++) {
+                if(this.values[targets[i]] == this.values[v]) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Checks if this is a complete and conflict free colouring of the graph.
+     */
+    public boolean isValid(CompactGraph graph) {
+        return this.isComplete() && this.isConflictFree(graph);
+    }
+
+    /**
+     * The amount of distinct colours used, uncoloured nodes are not counted.
+     */
+    public int countColours() {
+        return (int) this.stream().filter(e -> e != UNCOLOURED).distinct().count();
+    }
+
+    /**
+     * Creates an independent copy of this colouring.
+     */
+    public Colouring copy() {
+        return new Colouring(this.values.clone());
+    }
+
+}
@@ -0,0 +1,269 @@
+package edu.um.chromaster.graph;
+
+import java.util.Arrays;
+import java.util.Map;
+
+/**
+ * An immutable compressed sparse row (CSR) representation of the topology of a {@link Graph}.
+ *
+ * Every node is identified by its dense index in the range [0..{@link #size()}), see {@link IdIndex}. The neighbours
+ * of the node with the index 'v' are stored in {@link #targets()} from position {@code offsets()[v]} (inclusive) to
+ * {@code offsets()[v + 1]} (exclusive), sorted ascending. Instances are created with {@link Graph#compact()} and never
+ * change afterwards, so they can be shared freely between threads.
+ */
+public final class CompactGraph {
+
+    private final IdIndex index;
+    private final int[] offsets;
+    private final int[] targets;
+
+    private final int maxDegree;
+
+    private volatile BitAdjacency bitAdjacency = null;
+
+    private CompactGraph(IdIndex index, int[] offsets, int[] targets) {
+        this.index = index;
+        this.offsets = offsets;
+        this.targets = targets;
+
+        int max = 0;
+        for(int v = 0; v < index.size(); v++) {
+            max = Math.max(max, offsets[v + 1] - offsets[v]);
+        }
+        this.maxDegree = max;
+    }
+
+    /**
+     * Builds the CSR arrays from the map-based representation of the graph. Arcs pointing to an id that is not a node of
+     * the graph are ignored.
+     * @param index The id/index table of the graph, it is copied.
+     * @param edges The arcs of the graph, see {@link Graph#getEdges()}.
+     * @return Never null, the compact representation.
+     */
+    static CompactGraph of(IdIndex index, Map<Integer, Map<Integer, Node.Edge>> edges) {
+        final int size = index.size();
+        final int[] offsets = new int[size + 1];
+
+        //--- count the arcs first, so we only have to allocate the target array once
+        for(int v = 0; v < size; v++) {
+            Map<Integer, Node.Edge> out = edges.get(index.idOf(v));
+            int degree = 0;
+            if(out != null) {
+                for(int to : out.keySet()) {
+                    if(index.indexOf(to) >= 0) {
+                        degree++;
+                    }
+                }
+            }
+            offsets[v + 1] = offsets[v] + degree;
+        }
+
+        final int[] targets = new int[offsets[size]];
+        for(int v = 0; v < size; v++) {
+            Map<Integer, Node.Edge> out = edges.get(index.idOf(v));
+            if(out == null) {
+                continue;
+            }
+            int position = offsets[v];
+            for(int to : out.keySet()) {
+                int target = index.indexOf(to);
+                if(target >= 0) {
+                    targets[position++] = target;
+                }
+            }
+            Arrays.sort(targets, offsets[v], offsets[v + 1]);
+        }
+
+        return new CompactGraph(index.copy(), offsets, targets);
+    }
+
+    /**
+     * Wraps existing CSR arrays, e.g. the ones loaded by {@link GraphStore}. The arrays are checked to be well-formed,
+     * but they are not copied.
+     * @param index The id/index table of the graph.
+     * @param offsets The offset array, of length index.size() + 1.
+     * @param targets The target array, every row has to be sorted ascending.
+     * @return Never null, the compact representation.
+     * @throws IllegalArgumentException If the arrays do not describe a valid graph.
+     */
+    static CompactGraph wrap(IdIndex index, int[] offsets, int[] targets) {
+        final int size = index.size();
+        if(offsets.length != size + 1 || offsets[0] != 0 || offsets[size] != targets.length) {
+            throw new IllegalArgumentException("The offset array does not match the target array.");
+        }
+        for(int v = 0; v < size; v++) {
+            if(offsets[v] > offsets[v + 1]) {
+                throw new IllegalArgumentException("The offset array is not ascending.");
+            }
+            for(int i = offsets[v]; i < offsets[v + 1]; i++) {
+                if(targets[i] < 0 || targets[i] >= size || (i > offsets[v] && targets[i] <= targets[i - 1])) {
+                    throw new IllegalArgumentException("The target array is not a valid sorted row.");
+                }
+            }
+        }
+        return new CompactGraph(index, offsets, targets);
+    }
+
+    /**
+     * Builds the CSR arrays in bulk from a list of undirected edges, without creating any intermediate objects per edge.
+     * Self-loops and duplicate edges are dropped.
+     * @param index The id/index table of the graph, it is not copied.
+     * @param from The index of the first node of every edge.
+     * @param to The index of the second node of every edge.
+     * @param count The amount of edges in 'from' and 'to'.
+     * @return Never null, the compact representation.
+     */
+    static CompactGraph of(IdIndex index, int[] from, int[] to, int count) {
+        final int size = index.size();
+        final int[] offsets = new int[size + 1];
+
+        //--- count the arcs in both directions, then turn the counts into offsets
+        for(int i = 0; i < count; i++) {
+            if(from[i] != to[i]) {
+                offsets[from[i] + 1]++;
+                offsets[to[i] + 1]++;
+            }
+        }
+        for(int v = 0; v < size; v++) {
+            offsets[v + 1] += offsets[v];
+        }
+
+        final int[] targets = new int[offsets[size]];
+        final int[] position = Arrays.copyOf(offsets, size);
+        for(int i = 0; i < count; i++) {
+            if(from[i] != to[i]) {
+                targets[position[from[i]]++] = to[i];
+                targets[position[to[i]]++] = from[i];
+            }
+        }
+
+        //--- sort every row and squeeze out duplicates, rows only ever move towards the front of the array
+        int write = 0;
+        for(int v = 0; v < size; v++) {
+            final int start = offsets[v];
+            final int end = offsets[v + 1];
+            Arrays.sort(targets, start, end);
+            offsets[v] = write;
+            for(int i = start; i < end; i++) {
+                if(i == start || targets[i] != targets[i - 1]) {
+                    targets[write++] = targets[i];
+                }
+            }
+        }
+        offsets[size] = write;
+
+        return new CompactGraph(index, offsets, write == targets.length ? targets : Arrays.copyOf(targets, write));
+    }
+
+    /**
+     * Creates a deep copy of the arrays of this graph.
+     * @return Never null, an identical but independent instance.
+     */
+    public CompactGraph copy() {
+        return new CompactGraph(this.index.copy(), this.offsets.clone(), this.targets.clone());
+    }
+
+    /**
+     * The amount of nodes in the graph.
+     */
+    public int size() {
+        return this.index.size();
+    }
+
+    /**
+     * The amount of (directed) arcs in the graph, an undirected edge counts twice.
+     */
+    public int arcCount() {
+        return this.targets.length;
+    }
+
+    /**
+     * Returns the {@link Node#getId()} of the node with the provided index.
+     * @param index The dense index of the node.
+     */
+    public int idOf(int index) {
+        return this.index.idOf(index);
+    }
+
+    /**
+     * Returns the dense index of the node with the provided {@link Node#getId()}.
+     * @param id The id of the node.
+     * @return The index, or -1 if there is no node with this id.
+     */
+    public int indexOf(int id) {
+        return this.index.indexOf(id);
+    }
+
+    /**
+     * The amount of neighbours of the node with the provided index.
+     */
+    public int degree(int index) {
+        return this.offsets[index + 1] - this.offsets[index];
+    }
+
+    /**
+     * The highest {@link #degree(int)} of any node, 0 if the graph is empty.
+     */
+    public int maxDegree() {
+        return this.maxDegree;
+    }
+
+    /**
+     * The ratio of existing arcs to all possible arcs, in the range [0..1].
+     */
+    public double density() {
+        final long n = this.index.size();
+        return n < 2 ? 0 : this.targets.length / (double) (n * (n - 1));
+    }
+
+    /**
+     * Returns the bitset adjacency matrix of this graph. It is built on the first call and shared afterwards, since it
+     * needs n * n / 8 bytes it should only be requested for small or dense graphs.
+     * @return Never null.
+     */
+    public BitAdjacency bitAdjacency() {
+        BitAdjacency bitAdjacency = this.bitAdjacency;
+        if(bitAdjacency == null) {
+            synchronized (this) {
+                bitAdjacency = this.bitAdjacency;
+                if(bitAdjacency == null) {
+                    bitAdjacency = BitAdjacency.of(this);
+                    this.bitAdjacency = bitAdjacency;
+                }
+            }
+        }
+        return bitAdjacency;
+    }
+
+    /**
+     * Returns the i-th neighbour of a node.
+     * @param index The index of the node.
+     * @param i A value in the range [0..{@link #degree(int)}).
+     * @return The index of the neighbour.
+     */
+    public int neighbour(int index, int i) {
+        return this.targets[this.offsets[index] + i];
+    }
+
+    /**
+     * Checks if there is an arc going from 'from' to 'to'.
+     */
+    public boolean isAdjacent(int from, int to) {
+        return Arrays.binarySearch(this.targets, this.offsets[from], this.offsets[from + 1], to) >= 0;
+    }
+
+    /**
+     * The raw offset array, of length {@link #size()} + 1. It is shared and must not be modified.
+     */
+    public int[] offsets() {
+        return this.offsets;
+    }
+
+    /**
+     * The raw target array, of length {@link #arcCount()}. It is shared and must not be modified.
+     */
+    public int[] targets() {
+        return this.targets;
+    }
+
+}
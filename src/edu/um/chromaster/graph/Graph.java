@@ -3,12 +3,21 @@ package edu.um.chromaster.graph;
 import edu.um.chromaster.ChromaticNumber;
 import edu.um.chromaster.graph.Node.Edge;
 import java.util.*;
+import java.util.function.IntConsumer;
 import java.util.stream.Collectors;
 
 public class Graph implements Cloneable {
 
+    //--- null, as long as a clone or snapshot has not been materialised, see Graph#materialise()
     private Map<Integer, Node> nodes = new HashMap<>();
     private Map<Integer, Map<Integer, Edge>> edges = new HashMap<>();
+    private IdIndex index = new IdIndex(16);
+    private Node[] indexedNodes = new Node[16];
+    private volatile boolean materialised = true;
+
+    private volatile CompactGraph compact = null;
+
+    private Colouring colouring = null;
 
     private ChromaticNumber.Result chromaticNumberResult = new ChromaticNumber.Result(null,-1, -1, -1, false);
 
@@ -20,6 +29,34 @@ public class Graph implements Cloneable {
      */
     public Graph() {}
 
+    /**
+     * Creates a graph that is backed by an existing compact topology. The nodes and edges (including their view objects)
+     * are only created once they are accessed through the map-based methods, see {@link Graph#materialise()}.
+     * @param compact The topology, it is not copied.
+     */
+    private Graph(CompactGraph compact) {
+        this.nodes = null;
+        this.edges = null;
+        this.index = null;
+        this.indexedNodes = null;
+        this.materialised = false;
+        this.compact = compact;
+        for(int v = 0; v < compact.size(); v++) {
+            this.minNodeId = Math.min(this.minNodeId, compact.idOf(v));
+            this.maxNodeId = Math.max(this.maxNodeId, compact.idOf(v));
+        }
+    }
+
+    /**
+     * Creates a graph that is backed by a compact topology that has been built in bulk, e.g. by {@link GraphIO}. Like a
+     * {@link Graph#clone()}, the nodes and edges are only created once they are accessed.
+     * @param compact The topology, it is not copied.
+     * @return Never null.
+     */
+    static Graph of(CompactGraph compact) {
+        return new Graph(compact);
+    }
+
     /**
      * Returns the results of the calculations and related to the chromatic number.
      * @return Never null, {@link ChromaticNumber.Result#isReady()} is false, if it does not contain any valid results.
@@ -37,24 +74,53 @@ public class Graph implements Cloneable {
     }
 
     /**
-     * Sets all {@link Node#id} values to -1.
+     * Marks all nodes of the {@link Graph#getColouring()} as uncoloured.
      */
     public void reset() {
-        this.nodes.values().forEach(e -> e.setValue(-1));
+        this.getColouring().clear();
     }
 
     /**
-     * Adds a new node with an id and a certain value if it does not already exist, if it already exists, it will be ignored.
+     * Returns the colouring that is attached to this graph, this is the colouring the player works on and the one that
+     * {@link Node#getValue()} and {@link Node#setValue(int)} operate on. Solvers do not touch it, they use their own
+     * {@link Colouring} instances, so they can run on the same graph at the same time.
+     * @return Never null, a colouring indexed by the node indices, see {@link Graph#indexOf(int)}.
+     */
+    public synchronized Colouring getColouring() {
+        final int size = this.size();
+        if(this.colouring == null) {
+            this.colouring = new Colouring(size);
+        }
+        //--- nodes have been added since the colouring was created, indices never change so the existing values are kept
+        else if(this.colouring.size() != size) {
+            Colouring colouring = new Colouring(size);
+            System.arraycopy(this.colouring.values(), 0, colouring.values(), 0, this.colouring.size());
+            this.colouring = colouring;
+        }
+        return this.colouring;
+    }
+
+    /**
+     * Adds a new node with an id if it does not already exist, if it already exists, it will be ignored. The node gets the
+     * next free dense index assigned, see {@link Graph#indexOf(int)}.
      * @param id The id of the new node.
-     * @param value The value associated with the new node.
      * @return true, if the node was added, false, if the node already exists.
      */
-    public boolean addNode(int id, int value) {
+    public boolean addNode(int id) {
+        this.materialise();
         if(!(this.nodes.containsKey(id))) {
             minNodeId = Math.min(id, minNodeId);
             maxNodeId = Math.max(id, maxNodeId);
-            this.nodes.put(id, new Node(this, id, value));
+
+            final int index = this.index.add(id);
+            if(index == this.indexedNodes.length) {
+                this.indexedNodes = Arrays.copyOf(this.indexedNodes, this.indexedNodes.length * 2);
+            }
+            this.indexedNodes[index] = new Node(this, id, index);
+
+            this.nodes.put(id, this.indexedNodes[index]);
             this.edges.put(id, new HashMap<>());
+            this.compact = null;
             return true;
         }
         return false;
@@ -68,37 +134,139 @@ public class Graph implements Cloneable {
      *                      reversed, and 'bidirectional' set to false.
      */
     public void addEdge(int from, int to, boolean bidirectional) {
+        this.materialise();
         if(!(this.edges.containsKey(from))) {
             this.edges.put(from, new HashMap<>());
         }
         this.edges.get(from).put(to, new Edge(this.getNode(from), this.getNode(to)));
+        this.compact = null;
         if(bidirectional) {
             addEdge(to, from, false);
         }
     }
 
+    /**
+     * Returns the immutable CSR representation of the current topology. It is built on the first call and cached until
+     * the next call of {@link Graph#addNode(int)} or {@link Graph#addEdge(int, int, boolean)}, so the map-based
+     * structure is only used while the graph is being constructed.
+     * @return Never null, the compact representation of the graph.
+     */
+    public CompactGraph compact() {
+        CompactGraph compact = this.compact;
+        if(compact == null) {
+            synchronized (this) {
+                compact = this.compact;
+                if(compact == null) {
+                    compact = CompactGraph.of(this.index, this.edges);
+                    this.compact = compact;
+                }
+            }
+        }
+        return compact;
+    }
+
+    /**
+     * The amount of nodes in the graph.
+     */
+    public int size() {
+        return this.materialised ? this.index.size() : this.compact.size();
+    }
+
+    /**
+     * Returns the dense index of a node. Indices are assigned in the order the nodes are added, are in the range
+     * [0..{@link Graph#size()}) and never change, so they are shared by {@link Graph#compact()}, {@link Colouring} and
+     * all algorithms, no matter how the ids of the nodes are chosen.
+     * @param id The {@link Node#getId()} of the node.
+     * @return The index, or -1 if the node does not exist.
+     */
+    public int indexOf(int id) {
+        return this.materialised ? this.index.indexOf(id) : this.compact.indexOf(id);
+    }
+
+    /**
+     * Returns the {@link Node#getId()} of the node with the provided index.
+     * @param index A value in the range [0..{@link Graph#size()}).
+     */
+    public int idOf(int index) {
+        return this.materialised ? this.index.idOf(index) : this.compact.idOf(index);
+    }
+
+    /**
+     * Returns the node with the provided index in O(1).
+     * @param index A value in the range [0..{@link Graph#size()}).
+     */
+    public Node getNodeByIndex(int index) {
+        return this.indexedNodes()[index];
+    }
+
+    /**
+     * The nodes ordered by their index, the array may be longer than {@link Graph#size()}.
+     */
+    Node[] indexedNodes() {
+        this.materialise();
+        return this.indexedNodes;
+    }
+
+    /**
+     * Returns the amount of neighbours of a node. This does not allocate, and does not force the {@link CompactGraph} to
+     * be built while the graph is still being constructed.
+     * @param id The id of the node.
+     * @return The degree of the node, 0 if the node does not exist.
+     */
+    public int degree(int id) {
+        final CompactGraph compact = this.compact;
+        if(compact != null) {
+            final int index = this.indexOf(id);
+            return index == -1 ? 0 : compact.degree(index);
+        }
+        final Map<Integer, Edge> out = this.getEdges().get(id);
+        return out == null ? 0 : out.size();
+    }
+
+    /**
+     * Calls the consumer with the {@link Node#getId()} of every neighbour of a node, without allocating any intermediate
+     * collections.
+     * @param id The id of the node.
+     * @param consumer The consumer that is called for every neighbour.
+     */
+    public void forEachNeighbour(int id, IntConsumer consumer) {
+        final CompactGraph compact = this.compact();
+        final int index = this.indexOf(id);
+        if(index == -1) {
+            return;
+        }
+        final int[] targets = compact.targets();
+        for(int i = compact.offsets()[index], end = compact.offsets()[index + 1]; i < end; i++) {
+            consumer.accept(this.idOf(targets[i]));
+        }
+    }
+
+    /**
+     * Creates a new {@link NeighbourCursor} for this graph, which can be reused to iterate over the neighbours of any
+     * number of nodes without allocating.
+     * @return Never null, a new cursor.
+     */
+    public NeighbourCursor cursor() {
+        return new NeighbourCursor(this);
+    }
+
     /**
      * Gets the node with id 'id'.
      * @param id The node of the id to retrieve.
      * @return Returns the {@link Node} reference associated with the provided id, or null, if the node does not exist.
      */
     public Node getNode(int id) {
-        return this.nodes.get(id);
+        return this.getNodes().get(id);
     }
 
     /**
-     * Returns the next node with an higher id than the provided node.
+     * Returns the node with the next higher index than the provided node in O(1).
      * @param start The node where the search starts at.
-     * @return Null, if the provided node is the node with id == {@link Graph#getMaxNodeId()}, otherwise the node with
-     * the next highest id.
+     * @return Null, if the provided node is the node with the highest index, otherwise the node with the next index.
      */
     public Node getNextAvailableNode(Node start) {
-        for(int i = start.getId() + 1; i <= maxNodeId; i++) {
-            if(this.nodes.containsKey(i)) {
-                return this.nodes.get(i);
-            }
-        }
-        return null;
+        final int next = start.getIndex() + 1;
+        return next < this.size() ? this.getNodeByIndex(next) : null;
     }
 
     /**
@@ -117,18 +285,26 @@ public class Graph implements Cloneable {
      * @return Never null, a map where the key is the id of the node the edge goes to, and the value of the Edge.
      */
     public Map<Integer, Edge> getEdgeMap(int node) {
-        return this.edges.get(node);
+        return this.getEdges().get(node);
     }
 
+    /**
+     * Returns a copy of all edges starting at the provided node. This allocates a new list on every call, so hot code
+     * should use {@link Graph#forEachNeighbour(int, IntConsumer)}, {@link Graph#cursor()} or {@link Graph#degree(int)}.
+     * @param node The node the edges start at.
+     * @return Never null, a new list containing the edges.
+     */
     public List<Edge> getEdges(int node) {
         return new ArrayList<>(this.getEdgeMap(node).values());
     }
 
     public Map<Integer, Node> getNodes() {
+        this.materialise();
         return this.nodes;
     }
 
     public Map<Integer, Map<Integer, Edge>> getEdges() {
+        this.materialise();
         return this.edges;
     }
 
@@ -140,12 +316,78 @@ public class Graph implements Cloneable {
         return minNodeId;
     }
 
+    /**
+     * Creates an independent copy of this graph. The topology is copied array by array from {@link Graph#compact()}, in
+     * O(V+E), and the nodes, edges and their view objects of the copy are only created if they are ever accessed. The
+     * {@link Graph#getColouring()} is copied as well.
+     * @return Never null, the copy.
+     */
     @Override
     public Graph clone() {
-        Graph clone = new Graph();
-        this.nodes.forEach((k, v) -> clone.addNode(k, v.getValue()));
-        this.edges.forEach((k, v) -> v.forEach((to, edge) -> clone.addEdge(edge.getFrom().getId(), edge.getTo().getId(), true)));
-        return clone;
+        return this.copy(this.compact().copy());
+    }
+
+    /**
+     * Creates a copy-on-write snapshot of this graph. The snapshot shares the immutable topology with this graph, so only
+     * the {@link Graph#getColouring()} is copied, this makes it cheap enough to record intermediate solutions. Modifying
+     * the topology of either graph afterwards does not affect the other one.
+     * @return Never null, the snapshot.
+     */
+    public Graph snapshot() {
+        return this.copy(this.compact());
+    }
+
+    private Graph copy(CompactGraph compact) {
+        Graph copy = new Graph(compact);
+        synchronized (this) {
+            if(this.colouring != null) {
+                copy.colouring = this.getColouring().copy();
+            }
+        }
+        return copy;
+    }
+
+    /**
+     * Creates the map-based representation (nodes, edges and their view objects) from the compact topology, if this graph
+     * has been created by {@link Graph#clone()} or {@link Graph#snapshot()} and it has not been done yet.
+     */
+    private void materialise() {
+        if(this.materialised) {
+            return;
+        }
+        synchronized (this) {
+            //--- 'nodes' is already set while the edges are being created, and they call back into this method
+            if(this.materialised || this.nodes != null) {
+                return;
+            }
+            final CompactGraph compact = this.compact;
+
+            //--- the maps have to be assigned before any edge is created, because edges look up their reverse edge
+            IdIndex index = new IdIndex(compact.size());
+            Node[] indexedNodes = new Node[Math.max(compact.size(), 16)];
+            Map<Integer, Node> nodes = new HashMap<>();
+            Map<Integer, Map<Integer, Edge>> edges = new HashMap<>();
+            for(int v = 0; v < compact.size(); v++) {
+                index.add(compact.idOf(v));
+                indexedNodes[v] = new Node(this, compact.idOf(v), v);
+                nodes.put(compact.idOf(v), indexedNodes[v]);
+                edges.put(compact.idOf(v), new HashMap<>());
+            }
+            this.index = index;
+            this.indexedNodes = indexedNodes;
+            this.edges = edges;
+            this.nodes = nodes;
+
+            for(int v = 0; v < compact.size(); v++) {
+                final Node from = indexedNodes[v];
+                final Map<Integer, Edge> out = edges.get(from.getId());
+                for(int i = 0; i < compact.degree(v); i++) {
+                    final Node to = indexedNodes[compact.neighbour(v, i)];
+                    out.put(to.getId(), new Edge(from, to));
+                }
+            }
+            this.materialised = true;
+        }
     }
 
 }
@@ -0,0 +1,383 @@
+package edu.um.chromaster.graph;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * Reads and writes graphs in the DIMACS colouring format (.col), and colourings in the matching solution format.
+ *
+ * <pre>
+ *     c a comment
+ *     p edge 3 2
+ *     e 1 2
+ *     e 2 3
+ * </pre>
+ *
+ * The vertices of a file are numbered from 1 to n, they become the {@link Node#getId()} of the nodes, and the dense
+ * index of a node is its vertex number - 1. Solutions are written as one {@code s col <colours>} line, followed by
+ * one {@code l <vertex> <colour>} line per node.
+ *
+ * Files are read through {@link FileChannel#map}, and numbers are parsed straight from the mapped bytes, so reading does
+ * not allocate anything per line. The edges are collected in two int arrays and turned into a {@link CompactGraph} in one
+ * go, the map-based representation of the returned {@link Graph} is only created if it is ever accessed.
+ */
+public final class GraphIO {
+
+    //--- files larger than this are mapped in several windows
+    private final static long WINDOW_SIZE = 1L << 30;
+    private final static int WRITE_BUFFER_SIZE = 1 << 16;
+
+    private final static byte[] PROBLEM = "p edge ".getBytes(StandardCharsets.US_ASCII);
+    private final static byte[] EDGE = "e ".getBytes(StandardCharsets.US_ASCII);
+    private final static byte[] SOLUTION = "s col ".getBytes(StandardCharsets.US_ASCII);
+    private final static byte[] LABEL = "l ".getBytes(StandardCharsets.US_ASCII);
+
+    private GraphIO() {}
+
+    /**
+     * Reads a graph from a DIMACS .col file.
+     * @param path The file.
+     * @return Never null, the graph.
+     * @throws IOException If the file cannot be read, or if it is not a valid .col file.
+     */
+    public static Graph read(Path path) throws IOException {
+        return Graph.of(readCompact(path));
+    }
+
+    /**
+     * Reads the topology of a graph from a DIMACS .col file, without creating a {@link Graph}.
+     * @param path The file.
+     * @return Never null, the topology.
+     * @throws IOException If the file cannot be read, or if it is not a valid .col file.
+     */
+    public static CompactGraph readCompact(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            final Input input = new Input(channel);
+
+            IdIndex index = null;
+            int[] from = null;
+            int[] to = null;
+            int count = 0;
+
+            int c;
+            while ((c = input.skipBlank()) != -1) {
+                switch (c) {
+                    case 'p': {
+                        if(index != null) {
+                            throw input.error("duplicate problem line");
+                        }
+                        input.skipWord(); // 'edge' or 'col'
+                        final int nodes = input.readInt();
+                        final int edges = input.readInt();
+                        if(nodes < 0 || edges < 0) {
+                            throw input.error("negative vertex or edge count");
+                        }
+                        index = new IdIndex(nodes);
+                        for(int vertex = 1; vertex <= nodes; vertex++) {
+                            index.add(vertex);
+                        }
+                        from = new int[Math.max(edges, 16)];
+                        to = new int[from.length];
+                    } break;
+                    case 'e': {
+                        if(index == null) {
+                            throw input.error("edge before the problem line");
+                        }
+                        final int a = input.readInt() - 1;
+                        final int b = input.readInt() - 1;
+                        if(a < 0 || b < 0 || a >= index.size() || b >= index.size()) {
+                            throw input.error("vertex out of range");
+                        }
+                        //--- the header is only a hint, some instances contain more edges than announced
+                        if(count == from.length) {
+                            from = Arrays.copyOf(from, from.length * 2);
+                            to = Arrays.copyOf(to, to.length * 2);
+                        }
+                        from[count] = a;
+                        to[count] = b;
+                        count++;
+                    } break;
+                    default: break; // comments, and lines we do not care about, e.g. 'n' for node weights
+                }
+                input.skipLine();
+            }
+
+            if(index == null) {
+                throw new IOException(path + ": missing problem line");
+            }
+            return CompactGraph.of(index, from, to, count);
+        }
+    }
+
+    /**
+     * Writes a graph to a DIMACS .col file. Every pair of adjacent nodes is written as one undirected edge, the nodes are
+     * numbered by their dense index + 1.
+     * @param path The file, it is created or overwritten.
+     * @param graph The graph.
+     * @throws IOException If the file cannot be written.
+     */
+    public static void write(Path path, Graph graph) throws IOException {
+        write(path, graph.compact());
+    }
+
+    /**
+     * Writes a graph to a DIMACS .col file, see {@link GraphIO#write(Path, Graph)}.
+     */
+    public static void write(Path path, CompactGraph graph) throws IOException {
+        final int[] offsets = graph.offsets();
+        final int[] targets = graph.targets();
+
+        //--- an arc only becomes an edge of its own if the reverse arc does not exist, otherwise it is written once
+        int edges = 0;
+        for(int v = 0; v < graph.size(); v++) {
+            for(int i = offsets[v]; i < offsets[v + 1]; i++) {
+                if(v < targets[i] || !graph.isAdjacent(targets[i], v)) {
+                    edges++;
+                }
+            }
+        }
+
+        try (Output output = new Output(path)) {
+            output.write(PROBLEM).write(graph.size()).write(' ').write(edges).write('\n');
+            for(int v = 0; v < graph.size(); v++) {
+                for(int i = offsets[v]; i < offsets[v + 1]; i++) {
+                    if(v < targets[i] || !graph.isAdjacent(targets[i], v)) {
+                        output.write(EDGE).write(v + 1).write(' ').write(targets[i] + 1).write('\n');
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Writes a colouring in the solution format. Uncoloured nodes are written with the colour
+     * {@link Colouring#UNCOLOURED}.
+     * @param path The file, it is created or overwritten.
+     * @param colouring The colouring, indexed by the dense index of the nodes.
+     * @throws IOException If the file cannot be written.
+     */
+    public static void writeColouring(Path path, Colouring colouring) throws IOException {
+        try (Output output = new Output(path)) {
+            output.write(SOLUTION).write(colouring.countColours()).write('\n');
+            for(int v = 0; v < colouring.size(); v++) {
+                output.write(LABEL).write(v + 1).write(' ').write(colouring.get(v)).write('\n');
+            }
+        }
+    }
+
+    /**
+     * Reads a colouring in the solution format.
+     * @param path The file.
+     * @param graph The graph the colouring belongs to, nodes that are not listed in the file are uncoloured.
+     * @return Never null, the colouring.
+     * @throws IOException If the file cannot be read, or if it is not a valid solution file.
+     */
+    public static Colouring readColouring(Path path, CompactGraph graph) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            final Input input = new Input(channel);
+            final Colouring colouring = new Colouring(graph.size());
+
+            int c;
+            while ((c = input.skipBlank()) != -1) {
+                if(c == 'l') {
+                    final int vertex = input.readInt() - 1;
+                    if(vertex < 0 || vertex >= graph.size()) {
+                        throw input.error("vertex out of range");
+                    }
+                    colouring.set(vertex, input.readInt());
+                }
+                input.skipLine();
+            }
+            return colouring;
+        }
+    }
+
+    /**
+     * Sequential reader over the bytes of a file, backed by one or more memory-mapped windows.
+     */
+    private static class Input {
+
+        private final FileChannel channel;
+        private final long length;
+
+        private MappedByteBuffer buffer;
+        private long windowStart = 0;
+        private long line = 1;
+
+        Input(FileChannel channel) throws IOException {
+            this.channel = channel;
+            this.length = channel.size();
+            this.map(0);
+        }
+
+        private void map(long start) throws IOException {
+            this.windowStart = start;
+            this.buffer = this.channel.map(FileChannel.MapMode.READ_ONLY, start, Math.min(WINDOW_SIZE, this.length - start));
+        }
+
+        /**
+         * Returns the next byte without consuming it, or -1 at the end of the file.
+         */
+        private int peek() throws IOException {
+            if(!this.buffer.hasRemaining()) {
+                final long next = this.windowStart + this.buffer.limit();
+                if(next >= this.length) {
+                    return -1;
+                }
+                this.map(next);
+            }
+            return this.buffer.get(this.buffer.position());
+        }
+
+        private int read() throws IOException {
+            final int c = this.peek();
+            if(c != -1) {
+                this.buffer.position(this.buffer.position() + 1);
+            }
+            return c;
+        }
+
+        /**
+         * Skips white space and empty lines, and returns the first character of the next line, which is consumed.
+         */
+        int skipBlank() throws IOException {
+            int c;
+            while ((c = this.read()) != -1) {
+                if(c == '\n') {
+                    this.line++;
+                } else if(c != ' ' && c != '\t' && c != '\r') {
+                    return c;
+                }
+            }
+            return -1;
+        }
+
+        /**
+         * Skips everything up to and including the next line break.
+         */
+        void skipLine() throws IOException {
+            int c;
+            while ((c = this.read()) != -1) {
+                if(c == '\n') {
+                    this.line++;
+                    return;
+                }
+            }
+        }
+
+        void skipWord() throws IOException {
+            int c;
+            while ((c = this.peek()) == ' ' || c == '\t') {
+                this.read();
+            }
+            while ((c = this.peek()) != -1 && c != ' ' && c != '\t' && c != '\r' && c != '\n') {
+                this.read();
+            }
+        }
+
+        int readInt() throws IOException {
+            int c;
+            while ((c = this.peek()) == ' ' || c == '\t') {
+                this.read();
+            }
+            boolean negative = false;
+            if(c == '-') {
+                negative = true;
+                this.read();
+                c = this.peek();
+            }
+            if(c < '0' || c > '9') {
+                throw this.error("number expected");
+            }
+            long value = 0;
+            while ((c = this.peek()) >= '0' && c <= '9') {
+                value = value * 10 + (c - '0');
+                if(value > Integer.MAX_VALUE) {
+                    throw this.error("number too large");
+                }
+                this.read();
+            }
+            return (int) (negative ? -value : value);
+        }
+
+        IOException error(String message) {
+            return new IOException(String.format("line %d: %s", this.line, message));
+        }
+
+    }
+
+    /**
+     * Buffered writer that formats numbers directly into a byte buffer.
+     */
+    private static class Output implements AutoCloseable {
+
+        private final FileChannel channel;
+        private final ByteBuffer buffer = ByteBuffer.allocateDirect(WRITE_BUFFER_SIZE);
+        private final byte[] digits = new byte[11];
+
+        Output(Path path) throws IOException {
+            this.channel = FileChannel.open(path, StandardOpenOption.WRITE, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING);
+        }
+
+        Output write(char c) throws IOException {
+            this.ensure(1);
+            this.buffer.put((byte) c);
+            return this;
+        }
+
+        Output write(byte[] bytes) throws IOException {
+            this.ensure(bytes.length);
+            this.buffer.put(bytes);
+            return this;
+        }
+
+        Output write(int value) throws IOException {
+            this.ensure(this.digits.length);
+            long rest = value;
+            if(rest < 0) {
+                this.buffer.put((byte) '-');
+                rest = -rest;
+            }
+            int length = 0;
+            do {
+                this.digits[length++] = (byte) ('0' + rest % 10);
+                rest /= 10;
+            } while (rest != 0);
+            while (length > 0) {
+                this.buffer.put(this.digits[--length]);
+            }
+            return this;
+        }
+
+        private void ensure(int bytes) throws IOException {
+            if(this.buffer.remaining() < bytes) {
+                this.flush();
+            }
+        }
+
+        private void flush() throws IOException {
+            this.buffer.flip();
+            while (this.buffer.hasRemaining()) {
+                this.channel.write(this.buffer);
+            }
+            this.buffer.clear();
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                this.flush();
+            } finally {
+                this.channel.close();
+            }
+        }
+
+    }
+
+}
@@ -0,0 +1,181 @@
+package edu.um.chromaster.graph;
+
+import edu.um.chromaster.ChromaticNumber;
+
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CRC32C;
+
+/**
+ * Stores a {@link Graph} in a compact binary snapshot, so generated and solved puzzles can be loaded again without
+ * rebuilding or re-solving them.
+ *
+ * All values are little-endian ints, the file is laid out as follows:
+ * <pre>
+ *     magic, version, flags, nodes, arcs, exact, lower, upper
+ *     ids[nodes]                  the {@link Node#getId()} of every dense index
+ *     offsets[nodes + 1]          see {@link CompactGraph#offsets()}
+ *     targets[arcs]               see {@link CompactGraph#targets()}
+ *     colouring[nodes]            if FLAG_COLOURING is set, the {@link Graph#getColouring()}
+ *     solution[nodes]             if FLAG_SOLUTION is set, the {@link ChromaticNumber.Result#getSolution()}
+ *     checksum                    CRC32C of all bytes before it
+ * </pre>
+ * The exact, lower and upper bound are only meaningful if FLAG_RESULT is set.
+ *
+ * A snapshot is loaded by mapping the file and bulk-copying the arrays straight into a {@link CompactGraph}, the nodes
+ * and edges of the returned graph are only created once they are accessed.
+ */
+public final class GraphStore {
+
+    private final static int MAGIC = 0x4D524843; // 'CHRM'
+    private final static int VERSION = 1;
+
+    private final static int FLAG_COLOURING = 1;
+    private final static int FLAG_SOLUTION = 1 << 1;
+    private final static int FLAG_RESULT = 1 << 2;
+
+    private final static int HEADER_INTS = 8;
+
+    private GraphStore() {}
+
+    /**
+     * Writes a snapshot of a graph, including its colouring and its chromatic number results, if there are any.
+     * @param path The file, it is created or overwritten.
+     * @param graph The graph.
+     * @throws IOException If the file cannot be written, or the graph is too large for the format.
+     */
+    public static void save(Path path, Graph graph) throws IOException {
+        final CompactGraph compact = graph.compact();
+        final Colouring colouring = graph.getColouring();
+        final ChromaticNumber.Result result = graph.getChromaticResult();
+        final Colouring solution = result.isReady() ? result.getSolution() : null;
+        final int n = compact.size();
+
+        int flags = 0;
+        if(colouring.stream().anyMatch(e -> e != Colouring.UNCOLOURED)) {
+            flags |= FLAG_COLOURING;
+        }
+        if(solution != null && solution.size() == n) {
+            flags |= FLAG_SOLUTION;
+        }
+        if(result.isReady()) {
+            flags |= FLAG_RESULT;
+        }
+
+        long ints = HEADER_INTS + n + (n + 1L) + compact.arcCount();
+        ints += (flags & FLAG_COLOURING) != 0 ? n : 0;
+        ints += (flags & FLAG_SOLUTION) != 0 ? n : 0;
+        final long bytes = (ints + 1) * Integer.BYTES;
+        if(bytes > Integer.MAX_VALUE) {
+            throw new IOException("The graph is too large to be stored in a single snapshot.");
+        }
+
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            final MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, bytes);
+            buffer.order(ByteOrder.LITTLE_ENDIAN);
+
+            final IntBuffer out = buffer.asIntBuffer();
+            out.put(MAGIC).put(VERSION).put(flags).put(n).put(compact.arcCount());
+            out.put(result.getExact()).put(result.getLower()).put(result.getUpper());
+            for(int v = 0; v < n; v++) {
+                out.put(compact.idOf(v));
+            }
+            out.put(compact.offsets());
+            out.put(compact.targets());
+            if((flags & FLAG_COLOURING) != 0) {
+                out.put(colouring.values(), 0, n);
+            }
+            if((flags & FLAG_SOLUTION) != 0) {
+                out.put(solution.values());
+            }
+
+            final CRC32C crc = new CRC32C();
+            crc.update(buffer.slice(0, (int) bytes - Integer.BYTES));
+            out.put((int) crc.getValue());
+            buffer.force();
+        }
+    }
+
+    /**
+     * Loads a snapshot written by {@link GraphStore#save(Path, Graph)}.
+     * @param path The file.
+     * @return Never null, the graph, with its colouring and chromatic number results restored.
+     * @throws IOException If the file cannot be read, has an unsupported version, or its checksum does not match.
+     */
+    public static Graph load(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            final long bytes = channel.size();
+            if(bytes < (HEADER_INTS + 2) * Integer.BYTES || bytes > Integer.MAX_VALUE || bytes % Integer.BYTES != 0) {
+                throw new IOException(path + ": not a graph snapshot");
+            }
+            final MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, bytes);
+            buffer.order(ByteOrder.LITTLE_ENDIAN);
+
+            final IntBuffer in = buffer.asIntBuffer();
+            if(in.get() != MAGIC) {
+                throw new IOException(path + ": not a graph snapshot");
+            }
+            final int version = in.get();
+            if(version != VERSION) {
+                throw new IOException(String.format("%s: unsupported snapshot version %d", path, version));
+            }
+
+            final CRC32C crc = new CRC32C();
+            crc.update(buffer.slice(0, (int) bytes - Integer.BYTES));
+            if((int) crc.getValue() != in.get(in.limit() - 1)) {
+                throw new IOException(path + ": checksum mismatch");
+            }
+
+            final int flags = in.get();
+            final int n = in.get();
+            final int arcs = in.get();
+            final int exact = in.get();
+            final int lower = in.get();
+            final int upper = in.get();
+
+            long ints = HEADER_INTS + n + (n + 1L) + arcs + 1;
+            ints += (flags & FLAG_COLOURING) != 0 ? n : 0;
+            ints += (flags & FLAG_SOLUTION) != 0 ? n : 0;
+            if(n < 0 || arcs < 0 || ints != in.limit()) {
+                throw new IOException(path + ": truncated snapshot");
+            }
+
+            final IdIndex index = new IdIndex(n);
+            for(int v = 0; v < n; v++) {
+                if(index.add(in.get()) != v) {
+                    throw new IOException(path + ": duplicate node id");
+                }
+            }
+            final int[] offsets = new int[n + 1];
+            final int[] targets = new int[arcs];
+            in.get(offsets);
+            in.get(targets);
+
+            final Graph graph;
+            try {
+                graph = Graph.of(CompactGraph.wrap(index, offsets, targets));
+            } catch (IllegalArgumentException e) {
+                throw new IOException(path + ": " + e.getMessage(), e);
+            }
+
+            if((flags & FLAG_COLOURING) != 0) {
+                in.get(graph.getColouring().values(), 0, n);
+            }
+            if((flags & FLAG_RESULT) != 0) {
+                Colouring solution = null;
+                if((flags & FLAG_SOLUTION) != 0) {
+                    solution = new Colouring(n);
+                    in.get(solution.values());
+                }
+                graph.setChromaticResults(new ChromaticNumber.Result(solution, exact, lower, upper, true));
+            }
+            return graph;
+        }
+    }
+
+}
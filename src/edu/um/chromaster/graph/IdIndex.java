@@ -0,0 +1,135 @@
+package edu.um.chromaster.graph;
+
+import java.util.Arrays;
+
+/**
+ * A bidirectional table between the external {@link Node#getId()} values and the dense internal indices in the range
+ * [0..{@link #size()}). Indices are assigned in insertion order and never change, so arrays indexed by them stay valid
+ * when more nodes are added.
+ *
+ * The id to index direction is an open-addressing hash table over primitive ints, so looking up an index is O(1) no
+ * matter how sparse or large the ids are, and it does not allocate.
+ */
+public final class IdIndex {
+
+    private final static int EMPTY = -1;
+
+    private int[] ids;
+    private int size = 0;
+
+    //--- 'slots' stores index + 1, so 0 can mark a free slot
+    private int[] slots;
+
+    /**
+     * Creates an empty table.
+     * @param expectedSize The amount of ids that are expected to be added, used to size the table.
+     */
+    public IdIndex(int expectedSize) {
+        this.ids = new int[Math.max(expectedSize, 8)];
+        this.slots = new int[tableSize(this.ids.length)];
+    }
+
+    private IdIndex(int[] ids, int size, int[] slots) {
+        this.ids = ids;
+        this.size = size;
+        this.slots = slots;
+    }
+
+    /**
+     * Assigns the next free index to an id.
+     * @param id The id.
+     * @return The index of the id, if the id has been added before the existing index is returned.
+     */
+    public int add(int id) {
+        final int existing = this.indexOf(id);
+        if(existing != EMPTY) {
+            return existing;
+        }
+
+        if(this.size == this.ids.length) {
+            this.ids = Arrays.copyOf(this.ids, this.ids.length * 2);
+        }
+        //--- keep the load factor at or below 0.5
+        if((this.size + 1) * 2 > this.slots.length) {
+            this.rehash(this.slots.length * 2);
+        }
+
+        final int index = this.size++;
+        this.ids[index] = id;
+        this.insert(id, index);
+        return index;
+    }
+
+    /**
+     * Returns the index of an id.
+     * @param id The id.
+     * @return The index, or -1 if the id has not been added.
+     */
+    public int indexOf(int id) {
+        final int mask = this.slots.length - 1;
+        for(int slot = mix(id) & mask; ; slot = (slot + 1) & mask) {
+            final int entry = this.slots[slot];
+            if(entry == 0) {
+                return EMPTY;
+            }
+            if(this.ids[entry - 1] == id) {
+                return entry - 1;
+            }
+        }
+    }
+
+    /**
+     * Returns the id assigned to an index.
+     * @param index A value in the range [0..{@link #size()}).
+     */
+    public int idOf(int index) {
+        return this.ids[index];
+    }
+
+    /**
+     * The amount of ids in the table.
+     */
+    public int size() {
+        return this.size;
+    }
+
+    /**
+     * Creates an independent copy, trimmed to the current size.
+     */
+    public IdIndex copy() {
+        final IdIndex copy = new IdIndex(Arrays.copyOf(this.ids, Math.max(this.size, 1)), this.size, new int[tableSize(this.size)]);
+        for(int index = 0; index < this.size; index++) {
+            copy.insert(this.ids[index], index);
+        }
+        return copy;
+    }
+
+    private void rehash(int capacity) {
+        this.slots = new int[capacity];
+        for(int index = 0; index < this.size; index++) {
+            this.insert(this.ids[index], index);
+        }
+    }
+
+    private void insert(int id, int index) {
+        final int mask = this.slots.length - 1;
+        int slot = mix(id) & mask;
+        while (this.slots[slot] != 0) {
+            slot = (slot + 1) & mask;
+        }
+        this.slots[slot] = index + 1;
+    }
+
+    private static int tableSize(int capacity) {
+        return Integer.highestOneBit(Math.max(capacity, 4) * 2 - 1) << 1;
+    }
+
+    /**
+     * Spreads the bits of the id, so sequential ids do not end up in neighbouring slots.
+     */
+    private static int mix(int id) {
+        final int h = id * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+}
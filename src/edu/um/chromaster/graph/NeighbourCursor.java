@@ -0,0 +1,70 @@
+package edu.um.chromaster.graph;
+
+/**
+ * A reusable cursor over the neighbours of a node, that does not allocate anything while iterating. A cursor is
+ * created once with {@link Graph#cursor()} and then pointed at a node with {@link #reset(int)} as often as needed:
+ *
+ * <pre>
+ *     NeighbourCursor cursor = graph.cursor();
+ *     cursor.reset(node.getId());
+ *     while (cursor.hasNext()) {
+ *         Node neighbour = cursor.nextNode();
+ *     }
+ * </pre>
+ *
+ * A cursor must not be shared between threads.
+ */
+public final class NeighbourCursor {
+
+    private final Graph graph;
+
+    private CompactGraph compact;
+    private Node[] nodes;
+    private int position = 0;
+    private int end = 0;
+
+    NeighbourCursor(Graph graph) {
+        this.graph = graph;
+    }
+
+    /**
+     * Points the cursor at the first neighbour of the provided node.
+     * @param id The {@link Node#getId()} of the node, if the node does not exist the cursor will be empty.
+     * @return The cursor itself.
+     */
+    public NeighbourCursor reset(int id) {
+        this.compact = this.graph.compact();
+        this.nodes = this.graph.indexedNodes();
+
+        final int index = this.compact.indexOf(id);
+        if(index == -1) {
+            this.position = this.end = 0;
+        } else {
+            this.position = this.compact.offsets()[index];
+            this.end = this.compact.offsets()[index + 1];
+        }
+        return this;
+    }
+
+    /**
+     * Checks if there is at least one more neighbour.
+     */
+    public boolean hasNext() {
+        return this.position < this.end;
+    }
+
+    /**
+     * Returns the {@link Node#getId()} of the next neighbour.
+     */
+    public int next() {
+        return this.compact.idOf(this.compact.targets()[this.position++]);
+    }
+
+    /**
+     * Returns the next neighbour.
+     */
+    public Node nextNode() {
+        return this.nodes[this.compact.targets()[this.position++]];
+    }
+
+}
@@ -1,9 +1,11 @@
 package edu.um.chromaster.graph;
 
-import edu.um.chromaster.Game;
+import java.util.Random;
 
 public class RandomGraph {
 
+    public final static Random RANDOM = new Random(1); //TODO same seed to ease debugging efforts
+
     private double probability; //do not forget to initialize!
     private int LIMIT; //limit vertices
     private final double PROBEASY=0.1;
@@ -43,10 +45,10 @@ public class RandomGraph {
     public Graph setNada(){
         Graph g=new Graph();
 
-        numberVertices = (int) (Game.random.nextDouble() * (LIMIT - 2))+2;
+        numberVertices = (int) (RANDOM.nextDouble() * (LIMIT - 2))+2;
 
         for(int cnt=0; cnt<numberVertices;cnt++)
-            g.addNode(cnt, -1);
+            g.addNode(cnt);
 
         int cntEdges=0;
         int cnt=0;
@@ -54,8 +56,8 @@ public class RandomGraph {
         for(int a=0; a<numberVertices; a++){
             for(int c=0; c<numberVertices;c++){
                 cnt++;
-                double x = Game.random.nextDouble();
-                if(x<probability || g.getEdges(a).size()==0) {
+                double x = RANDOM.nextDouble();
+                if(x<probability || g.degree(a)==0) {
                     if(!edgeExists(a,c,g) && a!=c) {
                         g.addEdge(a, c, true);
                         cntEdges++;
@@ -72,11 +74,11 @@ public class RandomGraph {
         Graph g=new Graph();
         numberVertices=vertices;
         for(int cnt=0; cnt<numberVertices;cnt++)
-            g.addNode(cnt, -1);
+            g.addNode(cnt);
         int cntEdges=0;
         for(int a=0; a<numberVertices; a++){
             for(int b=0; b<numberVertices;b++){
-                if(Math.random()<probability||g.getEdges(a).size()==0){
+                if(Math.random()<probability||g.degree(a)==0){
                     if(!edgeExists(a,b,g)&&a!=b) {
                         g.addEdge(a, b, true);
                         cntEdges++;
@@ -95,14 +97,14 @@ public class RandomGraph {
         int min=(int) (Math.ceil(0.5+Math.sqrt( 0.25+2*numberEdges )));
         int max= numberEdges+1;
         int vertices=0;
-        vertices=(int)(Game.random.nextDouble()*(max-min+1)+min);
+        vertices=(int)(RANDOM.nextDouble()*(max-min+1)+min);
         numberVertices=vertices;
         for(int cnt=0; cnt<vertices;cnt++)
-            g.addNode(cnt, -1);
+            g.addNode(cnt);
         int cntEdges=0;
         for(int a=0; a<vertices; a++) {
-            if (g.getEdges(a).size() == 0) {
-                int b = (int) (Game.random.nextDouble() * (numberVertices + 1));
+            if (g.degree(a) == 0) {
+                int b = (int) (RANDOM.nextDouble() * (numberVertices + 1));
                 g.addEdge(a, b, true);
                 cntEdges++;
             }
@@ -128,11 +130,11 @@ public class RandomGraph {
         numberVertices=vertices;
         numberEdges=edges;
         for(int cnt=0; cnt<vertices;cnt++)
-            g.addNode(cnt, -1);
+            g.addNode(cnt);
         int cntEdges=0;
         for(int a=0; a<vertices; a++) {
-            if (g.getEdges(a).size() == 0) {
-                int b = (int) (Game.random.nextDouble() * (numberVertices + 1));
+            if (g.degree(a) == 0) {
+                int b = (int) (RANDOM.nextDouble() * (numberVertices + 1));
                 g.addEdge(a, b, true);
                 cntEdges++;
             }
@@ -152,13 +154,13 @@ public class RandomGraph {
         return g;
     }
     public void setPEasy(){
-        probability=Game.random.nextDouble()*(PROBEASY-0.01)+0.01;
+        probability=RANDOM.nextDouble()*(PROBEASY-0.01)+0.01;
     }
     public void setPMedium(){
-        probability=Game.random.nextDouble()*(PROBMEDIUM-PROBEASY)+PROBEASY;
+        probability=RANDOM.nextDouble()*(PROBMEDIUM-PROBEASY)+PROBEASY;
     }
     public void setPHard(){
-        probability=Game.random.nextDouble()*(-PROBMEDIUM+PROBHARD)+PROBMEDIUM;
+        probability=RANDOM.nextDouble()*(-PROBMEDIUM+PROBHARD)+PROBMEDIUM;
     }
     public void setLIMIT(int limit){
         LIMIT=limit;
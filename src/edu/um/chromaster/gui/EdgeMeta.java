@@ -0,0 +1,72 @@
+package edu.um.chromaster.gui;
+
+import edu.um.chromaster.graph.Node;
+import javafx.beans.property.ObjectProperty;
+import javafx.scene.paint.Paint;
+import javafx.scene.shape.Line;
+import javafx.scene.shape.Shape;
+
+/**
+ * The view state of a {@link Node.Edge}, the line connecting the two nodes. Like {@link NodeMeta} it is only created
+ * once the GUI asks for it with {@link EdgeMeta#of(Node.Edge)}.
+ */
+public class EdgeMeta {
+
+    private final Line line = new Line();
+
+    private EdgeMeta(Node.Edge edge) {
+        final Node from = edge.getFrom();
+        final Node to = edge.getTo();
+
+        //--- both directions of an undirected edge share their colour, if the view of the reverse edge exists already
+        Node.Edge reverse = from.getGraph().getEdge(to.getId(), from.getId());
+        if(reverse != null && reverse.getView() != null) {
+            this.line.strokeProperty().bindBidirectional(((EdgeMeta) reverse.getView()).line.strokeProperty());
+        }
+        this.line.strokeProperty().set(ColorList.EDGE_DEFAULT);
+
+        this.line.startXProperty().bind(NodeMeta.of(from).area().centerXProperty());
+        this.line.startYProperty().bind(NodeMeta.of(from).area().centerYProperty());
+        this.line.endXProperty().bind(NodeMeta.of(to).area().centerXProperty());
+        this.line.endYProperty().bind(NodeMeta.of(to).area().centerYProperty());
+        this.line.strokeWidthProperty().setValue(2);
+        this.line.visibleProperty().bind(NodeMeta.of(from).area().visibleProperty().and(NodeMeta.of(to).area().visibleProperty()));
+    }
+
+    /**
+     * Returns the view of an edge, it is created and attached to the edge on the first call.
+     * @param edge The edge.
+     * @return Never null.
+     */
+    public static EdgeMeta of(Node.Edge edge) {
+        synchronized (edge) {
+            EdgeMeta meta = (EdgeMeta) edge.getView();
+            if(meta == null) {
+                meta = new EdgeMeta(edge);
+                edge.setView(meta);
+            }
+            return meta;
+        }
+    }
+
+    public void hide() {
+        this.line.getStyleClass().add("disabled");
+    }
+
+    public void unhide() {
+        this.line.getStyleClass().remove("disabled");
+    }
+
+    public boolean visible() {
+        return this.line.isVisible();
+    }
+
+    public ObjectProperty<Paint> stroke() {
+        return this.line.strokeProperty();
+    }
+
+    public Shape[] getGraphicElements() {
+        return new Shape[] {line};
+    }
+
+}
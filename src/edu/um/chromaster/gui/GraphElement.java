@@ -42,7 +42,7 @@ public class GraphElement extends Pane {
 
         this.setOnMouseClicked(event -> {
             Optional<Node> node = graph.getNodes().values().stream()
-                    .filter(e -> e.getMeta().isAllowedToChangeColour() && e.getMeta().visible() && e.getMeta().area().contains(event.getX(), event.getY()))
+                    .filter(e -> NodeMeta.of(e).isAllowedToChangeColour() && NodeMeta.of(e).visible() && NodeMeta.of(e).area().contains(event.getX(), event.getY()))
                     .findAny();
             node.ifPresent(e -> Game.getEventHandler().trigger(new NodeClickedEvent(e)));
         });
@@ -51,14 +51,22 @@ public class GraphElement extends Pane {
         super.getStyleClass().add("graph-background");
         super.setBackground(new Background(new BackgroundFill(ColorList.GRAPH_BACKGROUND, null, Insets.EMPTY)));
         graph.getEdges().forEach((id, edges) -> edges.forEach((to, e) -> {
-            this.getChildren().addAll(e.getMeta().getGraphicElements());
+            this.getChildren().addAll(EdgeMeta.of(e).getGraphicElements());
         }));
         graph.getNodes().forEach((id, node) ->  {
-            this.getChildren().addAll(node.getMeta().getGraphicElements());
+            this.getChildren().addAll(NodeMeta.of(node).getGraphicElements());
         });
 
     }
 
+    /**
+     * Stops the layout threads and removes the graph from the scene. The element cannot be rendered again afterwards.
+     */
+    public void dispose() {
+        this.schedule.shutdownNow();
+        this.getChildren().clear();
+    }
+
     public void render() {
         switch (this.renderType) {
             case CIRCLE: GraphDrawer.circle(graph, this.getWidth(), this.getHeight()); break;
@@ -76,8 +84,8 @@ public class GraphElement extends Pane {
         // sort all nodes by #connect nodes descending
         Stack<Node> nodes = graph.getNodes().values().stream()
                 .sorted((o1, o2) -> {
-                    int a = graph.getEdges(o1.getId()).size();
-                    int b = graph.getEdges(o2.getId()).size();
+                    int a = graph.degree(o1.getId());
+                    int b = graph.degree(o2.getId());
 
                     if(a == 0 && b == 0) {
                         return Integer.compare(-o1.getId(), o2.getId());
@@ -98,7 +106,7 @@ public class GraphElement extends Pane {
                 return;
             }
 
-            if(graph.getNodes().values().stream().anyMatch(e -> !e.getMeta().visible())) {
+            if(graph.getNodes().values().stream().anyMatch(e -> !NodeMeta.of(e).visible())) {
 
                 // If there is nothing to deal with in the priority queue
                 if(priorityNodes.isEmpty()) {
@@ -106,13 +114,13 @@ public class GraphElement extends Pane {
                     // Take the node with the highest degree that is still on the stack
                     Node node = nodes.peek();
 
-                    if (node.getMeta().visible()) {
-                        List<Node.Edge> edges = graph.getEdges(node.getId()).stream().filter(e -> !e.getTo().getMeta().visible()).collect(Collectors.toList());
+                    if (NodeMeta.of(node).visible()) {
+                        List<Node.Edge> edges = graph.getEdges(node.getId()).stream().filter(e -> !NodeMeta.of(e.getTo()).visible()).collect(Collectors.toList());
                         // If the parent node (from the stack) is visible and has a neighbour that is not yet visible then make it visible.
                         if (!edges.isEmpty()) {
                             Node.Edge edge = edges.get(0);
                             Node toNode = edge.getTo();
-                            toNode.getMeta().visible(true);
+                            NodeMeta.of(toNode).visible(true);
 
                             // Add the neighbouring nodes to the priority list, so we deal with them before we move on
                             // to anything else.
@@ -126,26 +134,26 @@ public class GraphElement extends Pane {
                         else {
                             nodes.remove(node);
                             if (!nodes.isEmpty()) {
-                                nodes.pop().getMeta().visible(true);
+                                NodeMeta.of(nodes.pop()).visible(true);
                             }
                         }
 
                     }
                     // If the peek node is not yet visible
                     else {
-                        node.getMeta().visible(true);
+                        NodeMeta.of(node).visible(true);
                     }
 
                 }
                 // Handle priority queue
                 else {
-                    priorityNodes.pop().getMeta().visible(true);
+                    NodeMeta.of(priorityNodes.pop()).visible(true);
                 }
 
                 //aPlatform.runLater(this::draw);
 
             } else {
-                List<Node> notVisible = graph.getNodes().values().stream().filter(e -> !e.getMeta().visible()).collect(Collectors.toList());
+                List<Node> notVisible = graph.getNodes().values().stream().filter(e -> !NodeMeta.of(e).visible()).collect(Collectors.toList());
                 scheduledFuture.get().cancel(true);
             }
         }, 100L, MAX_TIME_STEP, TimeUnit.MILLISECONDS));
@@ -159,13 +167,13 @@ public class GraphElement extends Pane {
 
         graph.getEdges().values().forEach(edgeList -> {
             edgeList.forEach(edge -> {
-                if(edge.getTo().getMeta().visible() && edge.getFrom().getMeta().visible()) {
+                if(NodeMeta.of(edge.getTo()).visible() && NodeMeta.of(edge.getFrom()).visible()) {
                     this.getGraphicsContext2D().setStroke(Color.WHITE);
                     this.getGraphicsContext2D().strokeLine(
-                            edge.getFrom().getMeta().x(),
-                            edge.getFrom().getMeta().y(),
-                            edge.getTo().getMeta().x(),
-                            edge.getTo().getMeta().y()
+                            NodeMeta.of(edge.getFrom()).x(),
+                            NodeMeta.of(edge.getFrom()).y(),
+                            NodeMeta.of(edge.getTo()).x(),
+                            NodeMeta.of(edge.getTo()).y()
                     );
                 }
             });
@@ -173,9 +181,9 @@ public class GraphElement extends Pane {
 
 
         graph.getNodes().forEach((id, node) -> {
-            if(node.getMeta().visible()) {
+            if(NodeMeta.of(node).visible()) {
                 GraphicsContext g = this.getGraphicsContext2D();
-                node.getMeta().innerCircle()
+                NodeMeta.of(node).innerCircle()
             }
         });
 
@@ -198,7 +206,7 @@ public class GraphElement extends Pane {
     */
 
     public void displayHints(HintType... hintTypes) {
-        this.graph.getNodes().values().forEach(e -> e.getMeta().colour(ColorList.NODE_INNER_DEFAULT));
+        this.graph.getNodes().values().forEach(e -> NodeMeta.of(e).colour(ColorList.NODE_INNER_DEFAULT));
         for(HintType hintType : hintTypes) {
             switch (hintType) {
                 case CLIQUE: {
@@ -215,7 +223,7 @@ public class GraphElement extends Pane {
                 } break;
                 case HIGHES_DEGREE: {
                     Node node = HintManager.highestDegree(graph);
-                    node.getMeta().colour(ColorList.HINT_HIGHEST_DEGREE);
+                    NodeMeta.of(node).colour(ColorList.HINT_HIGHEST_DEGREE);
                 } break;
                 case MAX_NEIGHBOURS:
                     Node node = HintManager.maxNeighboursColoured(graph);
@@ -225,8 +233,8 @@ public class GraphElement extends Pane {
         }
     }
 
-    private void computeHighlighting(Predicate<Node> filter, Callback<Node.Meta> modify) {
-        this.graph.getNodes().values().stream().filter(filter).forEach(e -> modify.modify(e.getMeta()));
+    private void computeHighlighting(Predicate<Node> filter, Callback<NodeMeta> modify) {
+        this.graph.getNodes().values().stream().filter(filter).forEach(e -> modify.modify(NodeMeta.of(e)));
     }
 
     public static enum HintType {
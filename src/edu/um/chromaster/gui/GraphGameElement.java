@@ -2,6 +2,8 @@ package edu.um.chromaster.gui;
 
 import edu.um.chromaster.ChromaticNumber;
 import edu.um.chromaster.Game;
+import edu.um.chromaster.graph.Colouring;
+import edu.um.chromaster.graph.CompactGraph;
 import edu.um.chromaster.graph.Graph;
 import edu.um.chromaster.modes.GameMode;
 import javafx.scene.control.Button;
@@ -14,9 +16,14 @@ public class GraphGameElement extends BorderPane {
     private GameMode gameMode;
     private GraphElement graphElement;
     private ColourSelectorElement colourSelectorElement;
+    private ChromaticNumber.Handle solver;
 
     public GraphGameElement(Stage stage, Graph graph, GameMode gameMode) {
-        ChromaticNumber.computeAsync(ChromaticNumber.Type.EXACT, graph.clone(), graph::setChromaticResults);
+        //--- the solver only reads the topology and works on its own colouring, so it can share the graph with the player.
+        // Graphs loaded from a snapshot may already come with their results.
+        if(!graph.getChromaticResult().isReady()) {
+            this.solver = ChromaticNumber.computeAsync(ChromaticNumber.Type.EXACT, graph, graph::setChromaticResults);
+        }
 
         this.getStylesheets().add("res/style.css");
 
@@ -26,8 +33,8 @@ public class GraphGameElement extends BorderPane {
 
         // distribute graph nodes randomly
         graph.getNodes().forEach((id, node) -> {
-            node.getMeta().x((Game.random.nextDouble() * graphElement.getWidth()) - graphElement.getWidth() / 2);
-            node.getMeta().y((Game.random.nextDouble() * graphElement.getHeight()) - graphElement.getHeight() / 2);
+            NodeMeta.of(node).x((Game.random.nextDouble() * graphElement.getWidth()) - graphElement.getWidth() / 2);
+            NodeMeta.of(node).y((Game.random.nextDouble() * graphElement.getHeight()) - graphElement.getHeight() / 2);
         });
 
         this.graphElement.render();
@@ -46,9 +53,14 @@ public class GraphGameElement extends BorderPane {
 
         Button buttonSolution = new Button("Show Solution");
         buttonSolution.setOnAction(event -> {
-            graph.getChromaticResult().getSolution().getNodes().forEach((id, node) -> {
-                graph.getNode(id).getMeta().text(String.valueOf(node.getValue()));
-            });
+            Colouring solution = graph.getChromaticResult().getSolution();
+            if(solution == null) {
+                return;
+            }
+            CompactGraph compact = graph.compact();
+            for(int v = 0; v < compact.size(); v++) {
+                NodeMeta.of(graph.getNodeByIndex(v)).text(String.valueOf(solution.get(v)));
+            }
         });
 
         HBox hBox = new HBox();
@@ -58,5 +70,14 @@ public class GraphGameElement extends BorderPane {
         gameMode.start();
     }
 
+    /**
+     * Stops the solver and the layout threads of the graph, call this once the game is closed.
+     */
+    public void dispose() {
+        if(this.solver != null) {
+            this.solver.cancel();
+        }
+        this.graphElement.dispose();
+    }
 
 }
@@ -16,7 +16,7 @@ public class NodeMan   {
 
     //
     public void draw(GraphicsContext g) {
-        Node.Meta m = node.getMeta();
+        NodeMeta m = NodeMeta.of(node);
 
 
         if(partyMode) {
@@ -27,7 +27,7 @@ public class NodeMan   {
             g.fillOval(m.x() + m.radius() / 2 - 2, m.y() - m.radius() / 2 - 2, 8, 8);
         } else {
             g.setStroke(Color.WHITE);
-            g.strokeText(m.text(), (m.x() - (int) (m.radius() * 0.6)) + g.getFont().getSize() / 2, (node.getMeta().y() - (int) (m.radius() * 0.6)) + g.getFont().getSize(), m.radius() * 2);
+            g.strokeText(m.text(), (m.x() - (int) (m.radius() * 0.6)) + g.getFont().getSize() / 2, (NodeMeta.of(node).y() - (int) (m.radius() * 0.6)) + g.getFont().getSize(), m.radius() * 2);
         }
     }
 
@@ -0,0 +1,267 @@
+package edu.um.chromaster.gui;
+
+import edu.um.chromaster.graph.CompactGraph;
+import edu.um.chromaster.graph.Node;
+import javafx.event.EventHandler;
+import javafx.scene.input.MouseEvent;
+import javafx.scene.paint.Color;
+import javafx.scene.shape.Circle;
+import javafx.scene.shape.Shape;
+import javafx.scene.text.Font;
+import javafx.scene.text.Text;
+import javafx.scene.text.TextAlignment;
+
+import java.util.Map;
+
+/**
+ * The view state of a {@link Node}: its position, the shapes used to draw it, and the mouse handlers. The core graph
+ * classes do not know about JavaFX, a NodeMeta is only created and attached to a node once the GUI asks for it with
+ * {@link NodeMeta#of(Node)}.
+ */
+public class NodeMeta {
+
+    //--- shared by all nodes, the font is immutable and the handlers look the node up from the shape that was hovered
+    private final static Font FONT = Font.font("Yu Gothic UI Regular", 12);
+    private final static EventHandler<MouseEvent> ENTERED_EVENT = new EnteredEvent();
+    private final static EventHandler<MouseEvent> EXITED_EVENT = new ExitedEvent();
+
+    private final Node node;
+
+    private String textValue;
+    private final Text text = new Text();
+    private final Circle outer = new Circle();
+    private final Circle inner = new Circle();
+
+    private boolean visible = false;
+    private boolean allowedToChangeColour = true;
+    private boolean highlight = false;
+
+    public double displacementX, displacementY;
+    private double positionX, positionY;
+    private double radius = 20;
+
+
+
+    private NodeMeta(Node node) {
+        this.node = node;
+        this.textValue = String.valueOf(node.getId());
+        this.text.setFont(FONT);
+        this.text.setFill(ColorList.NODE_TEXT_DEFAULT);
+        this.text.setTextAlignment(TextAlignment.CENTER);
+
+        for(Shape shape : this.getGraphicElements()) {
+            shape.setUserData(node);
+            shape.setOnMouseEntered(ENTERED_EVENT);
+            shape.setOnMouseExited(EXITED_EVENT);
+        }
+
+        this.inner.getStyleClass().add("node");
+        this.outer.getStyleClass().add("node_border");
+        updateCircles();
+
+    }
+
+    /**
+     * Returns the view of a node, it is created and attached to the node on the first call, which usually is the first
+     * time the node is rendered.
+     * @param node The node.
+     * @return Never null.
+     */
+    public static NodeMeta of(Node node) {
+        synchronized (node) {
+            NodeMeta meta = (NodeMeta) node.getView();
+            if(meta == null) {
+                meta = new NodeMeta(node);
+                node.setView(meta);
+            }
+            return meta;
+        }
+    }
+
+    private static Node nodeOf(MouseEvent event) {
+        return (Node) ((javafx.scene.Node) event.getSource()).getUserData();
+    }
+
+    private static class EnteredEvent implements EventHandler<MouseEvent> {
+
+        @Override
+        public void handle(MouseEvent event) {
+            final Node node = nodeOf(event);
+            final CompactGraph compact = node.getGraph().compact();
+            final int index = node.getIndex();
+
+            for(Map<Integer, Node.Edge> map : node.getGraph().getEdges().values()) {
+                for(Node.Edge edge : map.values()) {
+                    //--- edges that have never been rendered have nothing to hide
+                    if(edge.getView() == null) {
+                        continue;
+                    }
+                    if(!isConnected(compact, index, edge.getFrom()) || !isConnected(compact, index, edge.getTo())) {
+                        NodeMeta.of(edge.getTo()).hide();
+                        NodeMeta.of(edge.getFrom()).hide();
+                        EdgeMeta.of(edge).hide();
+                    }
+                }
+            }
+
+            for(Node.Edge e : node.getGraph().getEdgeMap(node.getId()).values()) {
+                NodeMeta.of(e.getTo()).highlight(true);
+                EdgeMeta.of(e).stroke().set(ColorList.EDGE_HOVER);
+            }
+            NodeMeta.of(node).outer.setFill(ColorList.NODE_OUTER_DEFAULT);
+        }
+
+        /**
+         * Checks if 'other' is the hovered node itself, or one of its neighbours.
+         */
+        private boolean isConnected(CompactGraph compact, int index, Node other) {
+            return other.getIndex() == index || compact.isAdjacent(index, other.getIndex());
+        }
+    }
+
+    private static class ExitedEvent implements EventHandler<MouseEvent> {
+
+        @Override
+        public void handle(MouseEvent event) {
+            final Node node = nodeOf(event);
+            for(Map<Integer, Node.Edge> map : node.getGraph().getEdges().values()) {
+                for(Node.Edge edge : map.values()) {
+                    if(edge.getView() == null) {
+                        continue;
+                    }
+                    NodeMeta.of(edge.getTo()).unhide();
+                    NodeMeta.of(edge.getFrom()).unhide();
+                    EdgeMeta.of(edge).unhide();
+                }
+            }
+
+            for(Node.Edge e : node.getGraph().getEdgeMap(node.getId()).values()) {
+                NodeMeta.of(e.getTo()).highlight(false);
+                EdgeMeta.of(e).stroke().set(ColorList.EDGE_DEFAULT);
+            }
+            NodeMeta.of(node).outer.setFill(ColorList.NODE_OUTER_DEFAULT);
+        }
+    }
+
+
+    public void hide() {
+        this.outer.getStyleClass().add("disabled");
+        this.inner.getStyleClass().add("disabled");
+    }
+
+    public void unhide() {
+        this.outer.getStyleClass().remove("disabled");
+        this.inner.getStyleClass().remove("disabled");
+    }
+
+
+    public boolean isAllowedToChangeColour() {
+        return allowedToChangeColour;
+    }
+
+    public void setAllowedToChangeColour(boolean allowedToChangeColour) {
+        this.allowedToChangeColour = allowedToChangeColour;
+
+        if(this.allowedToChangeColour) {
+            this.text.fillProperty().set(Color.GOLD);
+        } else {
+            this.text.fillProperty().set(Color.WHITE);
+
+        }
+    }
+
+    public void colour(Color colour) {
+        this.inner.fillProperty().set(colour);
+        updateCircles();
+    }
+
+    public Color colour() {
+        // TODO look up if this cast is actually save
+        return (Color) this.outer.getFill();
+    }
+
+    public void highlight(boolean highlight) {
+        this.highlight = highlight;
+        updateCircles();
+    }
+
+    public boolean highlight() {
+        return this.highlight;
+    }
+
+    public boolean visible() {
+        return this.visible;
+    }
+
+    public String text() {
+        return this.textValue;
+    }
+
+    public void text(String text) {
+        this.textValue = text;
+        updateCircles();
+    }
+
+    public Circle area() {
+        return this.outer;
+    }
+
+    public double x() {
+        return this.positionX;
+    }
+
+    public double y() {
+        return this.positionY;
+    }
+
+    public double radius() {
+        return this.radius;
+    }
+
+    public void visible(boolean visible) {
+        this.visible = visible;
+        updateCircles();
+    }
+
+    public void x(double x) {
+        this.positionX = x;
+        this.updateCircles();
+    }
+
+    public void y(double y) {
+        this.positionY = y;
+        this.updateCircles();
+    }
+
+    private void updateCircles() {
+        this.outer.visibleProperty().setValue(visible());
+        this.inner.visibleProperty().setValue(visible());
+        this.text.visibleProperty().setValue(visible());
+
+        if(visible()) {
+
+            this.outer.centerXProperty().setValue(x());
+            this.outer.centerYProperty().setValue(y());
+            this.outer.radiusProperty().setValue(radius());
+
+            if(highlight()) {
+                this.outer.fillProperty().setValue(ColorList.NODE_HIGHLIGHTED);
+            } else if(isAllowedToChangeColour()) {
+                this.outer.fillProperty().set(ColorList.NODE_OUTER_DEFAULT);
+            }
+
+            this.inner.centerXProperty().setValue(x());
+            this.inner.centerYProperty().setValue(y());
+            this.inner.radiusProperty().setValue(radius() * 0.6);
+
+            this.text.textProperty().setValue(textValue);
+            this.text.xProperty().setValue(x() - (FONT.getSize() / 2) * (textValue.length() / 2));
+            this.text.yProperty().setValue(y() + (FONT.getSize() / 4));
+        }
+
+    }
+
+    public Shape[] getGraphicElements() {
+        return new Shape[] {outer, inner, text};
+    }
+}
@@ -5,7 +5,7 @@ import edu.um.chromaster.event.Subscribe;
 import edu.um.chromaster.event.events.NodeClickedEvent;
 import edu.um.chromaster.event.events.SelectColourEvent;
 import edu.um.chromaster.graph.Graph;
-import edu.um.chromaster.graph.Node;
+import edu.um.chromaster.gui.NodeMeta;
 
 
 public class FirstGameMode extends GameMode {
@@ -21,19 +21,19 @@ public class FirstGameMode extends GameMode {
     @Override
     public boolean gameWon() {
 
-        if(getGraph().getNodes().values().stream().anyMatch(e -> e.getValue() == -1)) {
+        if(!getColouring().isComplete()) {
             return false;
         }
         System.out.println("isValidColoured? " + isValidColoured());
-        System.out.println("expected: " + getGraph().getChromaticResult().getExact() + " got: " + getGraph().getNodes().values().stream().filter(e -> e.getValue() != -1).mapToInt(Node::getValue).distinct().count());
-        return isValidColoured() && getGraph().getChromaticResult().getExact() == getGraph().getNodes().values().stream().filter(e -> e.getValue() != -1).mapToInt(Node::getValue).distinct().count();
+        System.out.println("expected: " + getGraph().getChromaticResult().getExact() + " got: " + getColouring().countColours());
+        return isValidColoured() && getGraph().getChromaticResult().getExact() == getColouring().countColours();
     }
 
     @Subscribe
     public void onNodeClicked(NodeClickedEvent event) {
 
         if(this.getSelectedColour() != null) {
-            event.getNode().getMeta().colour(this.getSelectedColour());
+            NodeMeta.of(event.getNode()).colour(this.getSelectedColour());
             event.getNode().setValue(this.getSelectedColour().hashCode());
         }
     }
@@ -1,8 +1,8 @@
 package edu.um.chromaster.modes;
 
 import edu.um.chromaster.event.EventListener;
+import edu.um.chromaster.graph.Colouring;
 import edu.um.chromaster.graph.Graph;
-import edu.um.chromaster.graph.Node;
 import javafx.scene.paint.Color;
 
 public abstract class GameMode implements EventListener {
@@ -22,11 +22,18 @@ public abstract class GameMode implements EventListener {
     }
 
     public long getUsedColours() {
-        return this.graph.getNodes().values().stream().filter(e -> e.getValue() != -1).mapToInt(Node::getValue).count();
+        return this.getColouring().stream().filter(e -> e != Colouring.UNCOLOURED).count();
     }
 
     public boolean isValidColoured() {
-        return graph.getNodes().values().stream().noneMatch((node) -> graph.getEdges(node.getId()).stream().anyMatch(e -> e.getTo().getValue() == node.getValue() || node.getValue() == -1));
+        return this.getColouring().isValid(graph.compact());
+    }
+
+    /**
+     * The colouring the player works on, see {@link Graph#getColouring()}.
+     */
+    public Colouring getColouring() {
+        return graph.getColouring();
     }
 
     public Color getSelectedColour() {
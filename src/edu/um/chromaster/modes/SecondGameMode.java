@@ -4,7 +4,8 @@ package edu.um.chromaster.modes;
 import edu.um.chromaster.event.Subscribe;
 import edu.um.chromaster.event.events.NodeClickedEvent;
 import edu.um.chromaster.graph.Graph;
-import edu.um.chromaster.graph.Node;
+import edu.um.chromaster.graph.Colouring;
+import edu.um.chromaster.gui.NodeMeta;
 import javafx.scene.paint.Color;
 
 import java.util.concurrent.ScheduledThreadPoolExecutor;
@@ -24,14 +25,14 @@ public class SecondGameMode extends GameMode {
     }
 
     public long getUsedColours() {
-        return getGraph().getNodes().values().stream().mapToInt(Node::getValue).distinct().sum();
+        return getColouring().stream().distinct().sum();
     }
 
     @Override
     public void start() {
         this.schedule.schedule(() -> {
             this.isPlayerOutOfTime = true;
-            getGraph().getNodes().forEach((id, node) -> node.getMeta().colour(Color.RED));
+            getGraph().getNodes().forEach((id, node) -> NodeMeta.of(node).colour(Color.RED));
         }, this.timeInSeconds, TimeUnit.SECONDS);
     }
 
@@ -43,13 +44,13 @@ public class SecondGameMode extends GameMode {
     @Subscribe
     public void onNodeClicked(NodeClickedEvent event) {
         if(this.getSelectedColour() != null) {
-            event.getNode().getMeta().colour(this.getSelectedColour());
+            NodeMeta.of(event.getNode()).colour(this.getSelectedColour());
             event.getNode().setValue(this.getSelectedColour().hashCode());
         }
     }
 
     private boolean isGraphFullyColoured() {
-        return this.getGraph().getNodes().values().stream().anyMatch(e -> e.getValue() != -1);
+        return getColouring().stream().anyMatch(e -> e != Colouring.UNCOLOURED);
     }
 
 }
@@ -4,9 +4,11 @@ import edu.um.chromaster.Game;
 import edu.um.chromaster.event.Subscribe;
 import edu.um.chromaster.event.events.NodeClickedEvent;
 import edu.um.chromaster.event.events.SelectColourEvent;
+import edu.um.chromaster.graph.Colouring;
 import edu.um.chromaster.graph.Graph;
 import edu.um.chromaster.graph.Node;
 import edu.um.chromaster.gui.ColorList;
+import edu.um.chromaster.gui.NodeMeta;
 import javafx.scene.paint.Color;
 
 import java.util.Collections;
@@ -25,8 +27,8 @@ public class ThirdGameMode extends GameMode {
     @Override
     public void start() {
         getGraph().getNodes().values().forEach(e -> {
-            e.getMeta().setAllowedToChangeColour(false);
-            e.getMeta().visible(false);
+            NodeMeta.of(e).setAllowedToChangeColour(false);
+            NodeMeta.of(e).visible(false);
         });
 
         for(Node n : getGraph().getNodes().values()) {
@@ -37,22 +39,22 @@ public class ThirdGameMode extends GameMode {
         System.out.printf("A> Total nodes %d, stack size: %d%n", getGraph().getNodes().size(), path.size());
 
         Node node = path.peek();
-        node.getMeta().visible(true);
-        node.getMeta().setAllowedToChangeColour(true);
+        NodeMeta.of(node).visible(true);
+        NodeMeta.of(node).setAllowedToChangeColour(true);
         getGraph().getEdges(node.getId()).forEach(e -> {
-            e.getTo().getMeta().visible(true);
-            e.getTo().getMeta().setAllowedToChangeColour(false);
+            NodeMeta.of(e.getTo()).visible(true);
+            NodeMeta.of(e.getTo()).setAllowedToChangeColour(false);
         });
     }
 
     @Override
     public double getScore() {
-        return (getGraph().getNodes().values().stream().filter(e -> e.getValue() != -1).mapToInt(Node::getValue).count());
+        return getColouring().stream().filter(e -> e != Colouring.UNCOLOURED).count();
     }
 
     @Override
     public boolean gameWon() {
-        return isValidColoured() && getGraph().getNodes().values().stream().filter(e -> e.getValue() != -1).mapToInt(Node::getValue).count() == getGraph().getNodes().size();
+        return isValidColoured() && getColouring().isComplete();
     }
 
     @Subscribe
@@ -62,27 +64,27 @@ public class ThirdGameMode extends GameMode {
 
         boolean neighbourHasSelectedColour = getGraph().getEdges(n.getId()).stream().noneMatch(e -> e.getTo().getValue() == getSelectedColour().hashCode());
 
-        if(neighbourHasSelectedColour && n.getMeta().isAllowedToChangeColour() && this.getSelectedColour() != null) {
+        if(neighbourHasSelectedColour && NodeMeta.of(n).isAllowedToChangeColour() && this.getSelectedColour() != null) {
 
-            event.getNode().getMeta().colour(getSelectedColour());
+            NodeMeta.of(event.getNode()).colour(getSelectedColour());
             event.getNode().setValue(getSelectedColour().hashCode());
-            n.getMeta().setAllowedToChangeColour(false);
+            NodeMeta.of(n).setAllowedToChangeColour(false);
 
             System.out.printf("A> Total nodes %d, stack size: %d%n", getGraph().getNodes().size(), path.size());
             path.pop();
             System.out.printf("B> Total nodes %d, stack size: %d%n", getGraph().getNodes().size(), path.size());
 
             // TODO fix the comparision
-            getGraph().getEdges(n.getId()).stream().filter(e -> e.getTo().getValue() == -1).forEach(e -> e.getTo().getMeta().visible(false));
+            getGraph().getEdges(n.getId()).stream().filter(e -> e.getTo().getValue() == -1).forEach(e -> NodeMeta.of(e.getTo()).visible(false));
 
             if(!path.isEmpty()) {
                 Node node = path.peek();
 
-                node.getMeta().visible(true);
-                node.getMeta().setAllowedToChangeColour(true);
+                NodeMeta.of(node).visible(true);
+                NodeMeta.of(node).setAllowedToChangeColour(true);
                 getGraph().getEdges(node.getId()).forEach(e -> {
-                    e.getTo().getMeta().visible(true);
-                    e.getTo().getMeta().setAllowedToChangeColour(false);
+                    NodeMeta.of(e.getTo()).visible(true);
+                    NodeMeta.of(e.getTo()).setAllowedToChangeColour(false);
                 });
             }
         }
@@ -0,0 +1,424 @@
+package edu.um.chromaster.solver;
+
+import edu.um.chromaster.graph.BitAdjacency;
+import edu.um.chromaster.graph.Colouring;
+import edu.um.chromaster.graph.CompactGraph;
+
+import java.util.Arrays;
+
+/**
+ * Decides if a graph can be coloured with k colours by plain backtracking, for a descending sequence of k: the caller
+ * tests k = upper - 1, upper - 2, ... until a test fails.
+ *
+ * The solver keeps its state between the tests instead of starting from scratch for every k:
+ * <ul>
+ *     <li>The colouring found for k + 1 colours is repaired first. Every colour class, the smallest first, is emptied by
+ *     moving its nodes to a colour none of their neighbours has, or by moving the one neighbour that blocks a colour out
+ *     of the way. Only if no class can be emptied the search runs.</li>
+ *     <li>The nodes are always coloured in the same order: a maximum clique first, then all other nodes by decreasing
+ *     degree. The clique is only searched once.</li>
+ *     <li>Every subtree of the first {@link #NOGOOD_DEPTH} nodes that the search has exhausted is remembered as a
+ *     no-good. A partial colouring that cannot be completed with k colours cannot be completed with fewer colours
+ *     either, so the next tests skip it right away instead of exploring the same prefix of the tree again.</li>
+ * </ul>
+ *
+ * The colours are interchangeable, so every colouring would otherwise be found in k! permuted forms, and a failing test
+ * would have to refute all of them. The search only tries the colours 1..m + 1 for the next node, where m is the
+ * highest colour used so far. Every colouring can be renumbered in the order the colours first appear, so this still
+ * finds one if there is one. The clique nodes need different colours anyway, so they are fixed to 1..q before the
+ * search starts, and a test with fewer than q colours fails right away, see {@link #setCliquePrecolouring(boolean)}.
+ *
+ * On dense graphs checking a colour against the bitset of all nodes with that colour is cheaper than walking the
+ * neighbour list, so the search uses the bitset adjacency matrix there, and {@link ForbiddenColours} on sparse graphs
+ * and on graphs too large for the matrix.
+ *
+ * Instances are not thread-safe, one solver must only run one test at a time.
+ */
+public class BacktrackingSolver {
+
+    //--- graphs with at least this density are coloured using the bitset adjacency matrix, unless it would be too large,
+    // it needs n * n / 8 bytes
+    private final static double DENSE_THRESHOLD = 0.1;
+    private final static int MATRIX_NODES = 1 << 14;
+
+    //--- no-goods are the colours of the first NOGOOD_DEPTH nodes, COLOUR_BITS bits each, and the depth in the top bits
+    private final static int NOGOOD_DEPTH = 12;
+    private final static int COLOUR_BITS = 5;
+    private final static int DEPTH_SHIFT = 60;
+    private final static long PREFIX_MASK = (1L << DEPTH_SHIFT) - 1;
+    private final static int MAX_NOGOODS = 1 << 20;
+
+    //--- how many branches are counted locally before they are reported to the progress
+    private final static int FLUSH_INTERVAL = 1 << 10;
+
+    private final CompactGraph graph;
+    private final int size;
+    private final LongSet nogoods = new LongSet(1 << 10);
+
+    //--- the clique first, then all other nodes by decreasing degree, found by the first search
+    private int[] order;
+    private int cliqueSize;
+    private boolean cliquePrecolouring = true;
+
+    private BitAdjacency adjacency;
+    private Colouring incumbent;
+
+    private volatile Deadline deadline = Deadline.none();
+    private volatile Progress progress = new Progress();
+    private long branches = 0;
+    private long backtracks = 0;
+    private long pruned = 0;
+
+    public BacktrackingSolver(CompactGraph graph) {
+        this.graph = graph;
+        this.size = graph.size();
+    }
+
+    /**
+     * Sets the deadline of the following tests, the default one never expires.
+     */
+    public void setDeadline(Deadline deadline) {
+        this.deadline = deadline;
+    }
+
+    /**
+     * Sets the counters the following tests report their branches to.
+     */
+    public void setProgress(Progress progress) {
+        this.progress = progress;
+    }
+
+    /**
+     * Sets the colouring the next test tries to repair before it searches, it is replaced by every colouring the solver
+     * finds.
+     */
+    public void setIncumbent(Colouring incumbent) {
+        this.incumbent = incumbent;
+    }
+
+    /**
+     * Sets if the nodes of a maximum clique are coloured before the search, the default is true. Without it the nodes
+     * are only ordered by decreasing degree. It has to be set before the first test.
+     */
+    public void setCliquePrecolouring(boolean cliquePrecolouring) {
+        this.cliquePrecolouring = cliquePrecolouring;
+    }
+
+    /**
+     * Tries to colour the graph with the provided amount of colours.
+     * @return The colouring, with colours in the range [1..colours], or null, if the graph cannot be coloured with that
+     * many colours, or the deadline has expired.
+     */
+    public Colouring colour(int colours) {
+        Colouring colouring = this.repair(colours);
+        if(colouring == null) {
+            colouring = this.search(colours);
+        }
+        if(colouring != null) {
+            this.incumbent = colouring;
+        }
+        this.flush();
+        return colouring;
+    }
+
+    /**
+     * The amount of partial colourings that are known to fail.
+     */
+    public int getNogoods() {
+        return this.nogoods.size();
+    }
+
+    //--- Repair
+
+    /**
+     * Tries to turn the incumbent into a colouring with the provided amount of colours by emptying one colour class.
+     * @return The colouring, or null if the incumbent has too many colours or no class can be emptied.
+     */
+    private Colouring repair(int colours) {
+        if(this.incumbent == null || this.incumbent.size() != this.size || !this.incumbent.isValid(this.graph)) {
+            return null;
+        }
+        //--- colours 1..n in the order of their first appearance
+        final int[] values = DsaturSolver.normalise(this.incumbent.values());
+        for(int v = 0; v < this.size; v++) {
+            values[v]++;
+        }
+        final int used = Colouring.wrap(values).countColours();
+        if(used <= colours) {
+            return Colouring.wrap(values);
+        }
+        if(used > colours + 1) {
+            return null;
+        }
+
+        final Integer[] classes = new Integer[used];
+        final int[] classSize = new int[used + 1];
+        for(int v = 0; v < this.size; v++) {
+            classSize[values[v]]++;
+        }
+        for(int c = 0; c < used; c++) {
+            classes[c] = c + 1;
+        }
+        Arrays.sort(classes, (a, b) -> Integer.compare(classSize[a], classSize[b]));
+
+        for(int removed : classes) {
+            final int[] attempt = values.clone();
+            if(this.empty(attempt, removed)) {
+                //--- close the gap, so the colours are 1..colours again
+                for(int v = 0; v < this.size; v++) {
+                    if(attempt[v] > removed) {
+                        attempt[v]--;
+                    }
+                }
+                return Colouring.wrap(attempt);
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Moves all nodes with the colour 'removed' to other colours, changing the values in place.
+     * @return True if all of them could be moved.
+     */
+    private boolean empty(int[] values, int removed) {
+        final int used = values.length == 0 ? 0 : Arrays.stream(values).max().getAsInt();
+        final int[] count = new int[used + 1];
+        for(int v = 0; v < this.size; v++) {
+            if(values[v] != removed) {
+                continue;
+            }
+            Arrays.fill(count, 0);
+            for(int i = 0; i < this.graph.degree(v); i++) {
+                count[values[this.graph.neighbour(v, i)]]++;
+            }
+
+            boolean moved = false;
+            for(int c = 1; c <= used && !moved; c++) {
+                if(c != removed && count[c] == 0) {
+                    values[v] = c;
+                    moved = true;
+                }
+            }
+            //--- a colour that only one neighbour has is free once that neighbour can move somewhere else
+            for(int c = 1; c <= used && !moved; c++) {
+                if(c == removed || count[c] != 1) {
+                    continue;
+                }
+                for(int i = 0; i < this.graph.degree(v) && !moved; i++) {
+                    final int u = this.graph.neighbour(v, i);
+                    if(values[u] == c) {
+                        final int other = this.freeColour(values, u, c, removed, used);
+                        if(other != -1) {
+                            values[u] = other;
+                            values[v] = c;
+                            moved = true;
+                        }
+                    }
+                }
+            }
+            if(!moved) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * A colour in [1..used] other than 'current' and 'removed' that no neighbour of the node has, or -1.
+     */
+    private int freeColour(int[] values, int node, int current, int removed, int used) {
+        for(int c = 1; c <= used; c++) {
+            if(c == current || c == removed) {
+                continue;
+            }
+            boolean free = true;
+            for(int i = 0; i < this.graph.degree(node) && free; i++) {
+                free = values[this.graph.neighbour(node, i)] != c;
+            }
+            if(free) {
+                return c;
+            }
+        }
+        return -1;
+    }
+
+    //--- Search
+
+    private Colouring search(int colours) {
+        if(this.order == null) {
+            this.order();
+        }
+        if(colours < this.cliqueSize) {
+            this.pruned++;
+            return null;
+        }
+
+        //--- the clique is coloured 1..q up front, the search starts behind it
+        final int[] values = new int[this.size];
+        Arrays.fill(values, Colouring.UNCOLOURED);
+        long key = 0;
+        for(int i = 0; i < this.cliqueSize; i++) {
+            values[this.order[i]] = i + 1;
+            key = childKey(key, i, i + 1);
+        }
+
+        final boolean found;
+        if(this.size <= MATRIX_NODES && this.graph.density() >= DENSE_THRESHOLD) {
+            if(this.adjacency == null) {
+                this.adjacency = this.graph.bitAdjacency();
+            }
+            final long[][] classes = new long[colours + 1][this.adjacency.words()];
+            for(int i = 0; i < this.cliqueSize; i++) {
+                BitAdjacency.add(classes[i + 1], this.order[i]);
+            }
+            found = this.search(this.adjacency, values, classes, colours, this.cliqueSize, this.cliqueSize, key);
+        } else {
+            final ForbiddenColours forbidden = new ForbiddenColours(this.graph, colours + 1);
+            for(int i = 0; i < this.cliqueSize; i++) {
+                forbidden.assign(this.order[i], i + 1);
+            }
+            found = this.search(values, forbidden, colours, this.cliqueSize, this.cliqueSize, key);
+        }
+
+        return found ? Colouring.wrap(values) : null;
+    }
+
+    /**
+     * Puts the nodes of a maximum clique first, see {@link CliqueOrder}, or only orders them by decreasing degree if the
+     * clique is not precoloured.
+     */
+    private void order() {
+        final CliqueOrder order;
+        if(this.cliquePrecolouring) {
+            order = CliqueOrder.of(this.graph, this.deadline);
+        } else {
+            order = CliqueOrder.of(this.graph, new int[0]);
+        }
+        this.order = order.getOrder();
+        this.cliqueSize = order.getCliqueSize();
+    }
+
+    /**
+     * @param used The highest colour used by the first 'depth' nodes, the next node may only take one up to used + 1.
+     */
+    private boolean search(int[] values, ForbiddenColours forbidden, int colours, int depth, int used, long key) {
+        //--- Are all nodes coloured? If so, we are done.
+        if(depth == this.size) {
+            return true;
+        }
+        final boolean remembered = isRemembered(colours, depth);
+        if(remembered && this.nogoods.contains(key)) {
+            this.pruned++;
+            return false;
+        }
+        if(this.deadline.poll()) {
+            return false;
+        }
+        if((++this.branches & (FLUSH_INTERVAL - 1)) == 0) {
+            this.flush();
+        }
+
+        //--- Check this node for all available colours up to one new one, the bookkeeping knows the colours of the
+        // neighbours
+        final int node = this.order[depth];
+        final int limit = Math.min(colours, used + 1) + 1;
+        for(int c = forbidden.nextAvailable(node, 1, limit); c != -1; c = forbidden.nextAvailable(node, c + 1, limit)) {
+            values[node] = c;
+            forbidden.assign(node, c);
+
+            if(this.search(values, forbidden, colours, depth + 1, Math.max(used, c), childKey(key, depth, c))) {
+                return true;
+            }
+
+            forbidden.unassign(node, c);
+            values[node] = Colouring.UNCOLOURED;
+            this.backtracks++;
+        }
+
+        this.remember(remembered, key);
+        return false;
+    }
+
+    /**
+     * @param used The highest colour used by the first 'depth' nodes, the next node may only take one up to used + 1.
+     */
+    private boolean search(BitAdjacency graph, int[] values, long[][] classes, int colours, int depth, int used, long key) {
+        //--- Are all nodes coloured? If so, we are done.
+        if(depth == this.size) {
+            return true;
+        }
+        final boolean remembered = isRemembered(colours, depth);
+        if(remembered && this.nogoods.contains(key)) {
+            this.pruned++;
+            return false;
+        }
+        if(this.deadline.poll()) {
+            return false;
+        }
+        if((++this.branches & (FLUSH_INTERVAL - 1)) == 0) {
+            this.flush();
+        }
+
+        //--- Check this node for all colours up to one new one, 'classes[c]' contains all nodes coloured with 'c'
+        final int node = this.order[depth];
+        final int limit = Math.min(colours, used + 1);
+        for(int c = 1; c <= limit; c++) {
+            if(!graph.intersects(node, classes[c])) {
+                values[node] = c;
+                BitAdjacency.add(classes[c], node);
+
+                if(this.search(graph, values, classes, colours, depth + 1, Math.max(used, c), childKey(key, depth, c))) {
+                    return true;
+                }
+
+                BitAdjacency.remove(classes[c], node);
+                values[node] = Colouring.UNCOLOURED;
+                this.backtracks++;
+            }
+        }
+
+        this.remember(remembered, key);
+        return false;
+    }
+
+    /**
+     * Reports the locally counted branches, backtracks and pruned subtrees to the progress.
+     */
+    private void flush() {
+        this.progress.addBranches(this.branches);
+        this.progress.addBacktracks(this.backtracks);
+        this.progress.addPruned(this.pruned);
+        this.branches = 0;
+        this.backtracks = 0;
+        this.pruned = 0;
+    }
+
+    //--- No-goods
+
+    /**
+     * Checks if the partial colouring of the first 'depth' nodes fits into a no-good.
+     */
+    private static boolean isRemembered(int colours, int depth) {
+        return depth > 0 && depth <= NOGOOD_DEPTH && colours < (1 << COLOUR_BITS);
+    }
+
+    /**
+     * Records that a partial colouring has no completion, unless the search has only given up because of its deadline.
+     */
+    private void remember(boolean remembered, long key) {
+        if(remembered && this.nogoods.size() < MAX_NOGOODS && !this.deadline.isExpired()) {
+            this.nogoods.add(key);
+        }
+    }
+
+    /**
+     * The key of the partial colouring after the node at position 'depth' got the colour c.
+     */
+    private static long childKey(long key, int depth, int colour) {
+        if(depth >= NOGOOD_DEPTH) {
+            return key;
+        }
+        return ((long) (depth + 1) << DEPTH_SHIFT) | (((key & PREFIX_MASK) << COLOUR_BITS) | colour);
+    }
+
+}
@@ -0,0 +1,77 @@
+package edu.um.chromaster.solver;
+
+import edu.um.chromaster.graph.CompactGraph;
+
+/**
+ * The order the exact colouring searches visit the nodes in: the nodes of a maximum clique first, they need distinct
+ * colours anyway, and all other nodes after them by decreasing degree, nodes with the same degree by ascending index.
+ */
+final class CliqueOrder {
+
+    private final int[] order;
+    private final int cliqueSize;
+
+    private CliqueOrder(int[] order, int cliqueSize) {
+        this.order = order;
+        this.cliqueSize = cliqueSize;
+    }
+
+    /**
+     * Searches a maximum clique and orders the nodes around it. The clique search shares the deadline, if it expires the
+     * largest clique found so far is used.
+     */
+    static CliqueOrder of(CompactGraph graph, Deadline deadline) {
+        final MaxCliqueSolver cliqueSolver = new MaxCliqueSolver(graph);
+        cliqueSolver.setDeadline(deadline);
+        return of(graph, cliqueSolver.solve());
+    }
+
+    /**
+     * Orders the nodes around a known clique.
+     * @param clique The nodes of the clique, may be empty.
+     */
+    static CliqueOrder of(CompactGraph graph, int[] clique) {
+        final int size = graph.size();
+        final int maxDegree = graph.maxDegree();
+        final boolean[] inClique = new boolean[size];
+        for(int node : clique) {
+            inClique[node] = true;
+        }
+
+        //--- counting sort of the other nodes by decreasing degree, behind the clique
+        final int[] start = new int[maxDegree + 2];
+        for(int v = 0; v < size; v++) {
+            if(!inClique[v]) {
+                start[maxDegree - graph.degree(v) + 1]++;
+            }
+        }
+        start[0] = clique.length;
+        for(int i = 1; i < start.length; i++) {
+            start[i] += start[i - 1];
+        }
+
+        final int[] order = new int[size];
+        System.arraycopy(clique, 0, order, 0, clique.length);
+        for(int v = 0; v < size; v++) {
+            if(!inClique[v]) {
+                order[start[maxDegree - graph.degree(v)]++] = v;
+            }
+        }
+        return new CliqueOrder(order, clique.length);
+    }
+
+    /**
+     * All node indices, the clique first.
+     */
+    int[] getOrder() {
+        return this.order;
+    }
+
+    /**
+     * The amount of clique nodes at the front of the order.
+     */
+    int getCliqueSize() {
+        return this.cliqueSize;
+    }
+
+}
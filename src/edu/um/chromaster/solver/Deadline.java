@@ -0,0 +1,115 @@
+package edu.um.chromaster.solver;
+
+/**
+ * A point in time after which a search should give up, and a flag to give up earlier.
+ *
+ * Searches check their deadline cooperatively while they run and return the best result they have found so far once it
+ * has expired. A deadline has also expired if it has been cancelled, if its parent has expired, or if the thread that
+ * checks it has been interrupted.
+ *
+ * Deadlines are thread-safe, one deadline can be shared by all workers of a parallel search.
+ */
+public final class Deadline {
+
+    //--- how many calls of poll() are made between two reads of the clock
+    private final static int POLL_INTERVAL = 1 << 8;
+
+    private final long end;
+    private final Deadline parent;
+
+    private volatile boolean cancelled = false;
+    //--- once it has expired a deadline stays expired, so poll() does not have to read the clock anymore
+    private volatile boolean expired = false;
+    //--- only used to sample the clock, lost updates of concurrent callers do not matter
+    private int polls = 0;
+
+    private Deadline(long end, Deadline parent) {
+        this.end = end;
+        this.parent = parent;
+    }
+
+    /**
+     * A deadline that only expires if it is cancelled.
+     */
+    public static Deadline none() {
+        return new Deadline(Long.MAX_VALUE, null);
+    }
+
+    /**
+     * A deadline that expires after the provided amount of time.
+     * @param nanos The time budget, in nanoseconds.
+     */
+    public static Deadline after(long nanos) {
+        return new Deadline(nanos == Long.MAX_VALUE ? Long.MAX_VALUE : System.nanoTime() + nanos, null);
+    }
+
+    /**
+     * Creates a deadline that expires together with this one, but can also be cancelled on its own.
+     */
+    public Deadline child() {
+        return new Deadline(this.end, this);
+    }
+
+    /**
+     * Creates a deadline that expires after the provided amount of time or together with this one, whichever comes
+     * first, but can also be cancelled on its own.
+     * @param nanos The time budget, in nanoseconds.
+     */
+    public Deadline child(long nanos) {
+        final long remaining = this.remaining();
+        if(remaining == Long.MAX_VALUE && nanos == Long.MAX_VALUE) {
+            return this.child();
+        }
+        return new Deadline(System.nanoTime() + Math.min(remaining, nanos), this);
+    }
+
+    /**
+     * Expires the deadline now.
+     */
+    public void cancel() {
+        this.cancelled = true;
+    }
+
+    public boolean isCancelled() {
+        return this.cancelled || (this.parent != null && this.parent.isCancelled());
+    }
+
+    /**
+     * Checks if the deadline has expired.
+     */
+    public boolean isExpired() {
+        if(this.expired) {
+            return true;
+        }
+        if(this.isCancelled() || (this.end != Long.MAX_VALUE && System.nanoTime() - this.end >= 0)) {
+            this.expired = true;
+            return true;
+        }
+        return Thread.currentThread().isInterrupted();
+    }
+
+    /**
+     * Same as {@link #isExpired()}, but only reads the clock every few calls, so it can be called at every node of a
+     * search.
+     */
+    public boolean poll() {
+        if(this.expired || this.cancelled || Thread.currentThread().isInterrupted()) {
+            return true;
+        }
+        return (++this.polls & (POLL_INTERVAL - 1)) == 0 && this.isExpired();
+    }
+
+    /**
+     * The time left, in nanoseconds, 0 if the deadline has expired, or {@link Long#MAX_VALUE} if it never expires.
+     */
+    public long remaining() {
+        if(this.isCancelled()) {
+            return 0;
+        }
+        if(this.end == Long.MAX_VALUE) {
+            return Long.MAX_VALUE;
+        }
+        return Math.max(0, this.end - System.nanoTime());
+    }
+
+}
@@ -0,0 +1,479 @@
+package edu.um.chromaster.solver;
+
+import edu.um.chromaster.graph.Colouring;
+import edu.um.chromaster.graph.CompactGraph;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+/**
+ * Exact branch-and-bound colouring based on DSATUR (Brelaz, 1979).
+ *
+ * At every step the uncoloured node with the highest saturation (the amount of distinct colours among its neighbours)
+ * is branched on, ties are broken by the amount of uncoloured neighbours. The node is tried with every colour that is
+ * already in use and not taken by a neighbour, and then with one new colour. A branch is cut as soon as it would need as
+ * many colours as the best colouring found so far (the incumbent), so the incumbent only ever improves. The search stops
+ * early once the incumbent matches the clique lower bound.
+ *
+ * The saturation is kept up to date incrementally by {@link ForbiddenColours}, so assigning or removing a colour only
+ * touches the neighbours of one node, and finding the next available colour of a node is O(1).
+ *
+ * If the solver is created with a {@link ForkJoinPool}, the top of the search tree is split into subproblems, each one
+ * with a copy of the search state, and solved in parallel with work stealing. A subproblem is only split further while
+ * the queue of the worker thread runs low, so the amount of copies stays small. All workers share the incumbent, so a
+ * better colouring found by one worker immediately prunes the others, and all of them stop as soon as the incumbent
+ * matches the lower bound.
+ *
+ * A solver instance must only run one search at a time. The search checks the interrupt flag of the calling thread
+ * and its {@link Deadline} regularly, an interrupted or expired search returns the best colouring found so far, see
+ * {@link #isOptimal()}.
+ */
+public class DsaturSolver {
+
+    //--- how many branch nodes are explored between two checks of the interrupt flag and the deadline
+    private final static int INTERRUPT_CHECK_INTERVAL = 1 << 10;
+
+    //--- how many of the nodes with the highest degree are tried as the seed of the greedy clique
+    private final static int CLIQUE_SEEDS = 32;
+
+    //--- subproblems are only split while a worker has fewer queued tasks than this, and only up to this depth
+    private final static int SPLIT_SURPLUS = 3;
+    private final static int SPLIT_DEPTH = 32;
+
+    private final CompactGraph graph;
+    private final int[] offsets;
+    private final int[] targets;
+    private final int size;
+    private final ForkJoinPool pool;
+
+    private int stride;
+    private int lowerBound;
+
+    //--- the incumbent, shared by all workers
+    private int[] best;
+    private volatile int bestCount;
+
+    private final LongAdder branches = new LongAdder();
+    private volatile boolean stopped = false;
+    private volatile Thread caller;
+    private volatile Deadline deadline = Deadline.none();
+    private volatile Consumer<Colouring> listener;
+    private volatile Progress progress = new Progress();
+
+    /**
+     * Creates a solver that searches on the calling thread.
+     */
+    public DsaturSolver(CompactGraph graph) {
+        this(graph, null);
+    }
+
+    /**
+     * Creates a solver that splits the search into subproblems and solves them in the provided pool.
+     * @param graph The graph.
+     * @param pool The pool, or null to search on the calling thread.
+     */
+    public DsaturSolver(CompactGraph graph, ForkJoinPool pool) {
+        this.graph = graph;
+        this.offsets = graph.offsets();
+        this.targets = graph.targets();
+        this.size = graph.size();
+        this.pool = pool;
+    }
+
+    /**
+     * Sets the deadline of the following searches, the default one never expires.
+     */
+    public void setDeadline(Deadline deadline) {
+        this.deadline = deadline;
+    }
+
+    /**
+     * Sets a listener that is called with every better colouring as soon as it is found, from the thread that found it,
+     * or null to remove it. The colourings use the colours [0..k).
+     */
+    public void setListener(Consumer<Colouring> listener) {
+        this.listener = listener;
+    }
+
+    /**
+     * Sets the counters the following searches report their branches and bounds to.
+     */
+    public void setProgress(Progress progress) {
+        this.progress = progress;
+    }
+
+    /**
+     * Finds a colouring with the least amount of colours.
+     * @param lowerBound A known lower bound of the chromatic number, or 0. The solver also computes a greedy clique and
+     *                   uses the higher of both values.
+     * @param incumbent A known complete colouring, or null. The search only looks for colourings with fewer colours.
+     * @return Never null, a complete colouring with colours in the range [0..k), optimal unless the search has been
+     * interrupted.
+     */
+    public Colouring solve(int lowerBound, Colouring incumbent) {
+        this.branches.reset();
+        this.stopped = false;
+        this.caller = Thread.currentThread();
+        if(this.size == 0) {
+            return new Colouring(0);
+        }
+
+        this.lowerBound = Math.max(Math.max(lowerBound, 1), greedyClique(this.graph));
+
+        //--- without an incumbent a first-fit colouring is the start, it needs at most maxDegree + 1 colours
+        if(incumbent != null && incumbent.isValid(this.graph)) {
+            this.best = normalise(incumbent.values());
+            this.bestCount = incumbent.countColours();
+        } else {
+            this.best = new int[this.size];
+            this.bestCount = firstFit(this.graph, this.best);
+        }
+
+        this.progress.improveLower(this.lowerBound);
+        this.progress.improveUpper(this.bestCount);
+
+        if(this.bestCount > this.lowerBound) {
+            this.stride = this.bestCount;
+            final Search search = new Search();
+            if(this.pool == null) {
+                search.search(0, 0);
+            } else {
+                this.parallel(search);
+            }
+        }
+
+        synchronized (this) {
+            return Colouring.wrap(this.best.clone());
+        }
+    }
+
+    /**
+     * Checks if the last colouring returned by {@link #solve(int, Colouring)} is proven to be optimal.
+     */
+    public boolean isOptimal() {
+        return !this.stopped || this.bestCount <= this.lowerBound;
+    }
+
+    /**
+     * The lower bound used by the last call of {@link #solve(int, Colouring)}.
+     */
+    public int getLowerBound() {
+        return this.lowerBound;
+    }
+
+    /**
+     * The amount of branch nodes explored by the last call of {@link #solve(int, Colouring)}, summed over all workers.
+     */
+    public long getBranches() {
+        return this.branches.sum();
+    }
+
+    private void parallel(Search search) {
+        final ForkJoinTask<Void> task = this.pool.submit(new SearchTask(search, 0, 0, 0));
+        try {
+            task.get();
+        } catch (InterruptedException e) {
+            //--- stop all workers, and wait for them, so none of them touches the incumbent afterwards
+            this.stopped = true;
+            task.join();
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    /**
+     * Stores a complete colouring as the new incumbent, if it is better than the current one.
+     */
+    private synchronized void offer(int[] colours, int count) {
+        if(count < this.bestCount) {
+            System.arraycopy(colours, 0, this.best, 0, this.size);
+            this.bestCount = count;
+            this.progress.improveUpper(count);
+
+            final Consumer<Colouring> listener = this.listener;
+            if(listener != null) {
+                listener.accept(Colouring.wrap(this.best.clone()));
+            }
+            if(count <= this.lowerBound) {
+                this.stopped = true;
+            }
+        }
+    }
+
+    /**
+     * Checks if the search has to stop, either because the lower bound has been reached, the caller has been
+     * interrupted, or the deadline has expired.
+     */
+    private boolean isStopped(Search search) {
+        if((++search.branches & (INTERRUPT_CHECK_INTERVAL - 1)) == 0) {
+            search.flush(INTERRUPT_CHECK_INTERVAL);
+            if(this.caller.isInterrupted() || this.deadline.isExpired()) {
+                this.stopped = true;
+            }
+        }
+        return this.stopped;
+    }
+
+    /**
+     * The state of one search: a partial colouring and the saturation bookkeeping. Every worker has its own copy.
+     */
+    private class Search {
+
+        private final int[] colours;
+        private final ForbiddenColours forbidden;
+
+        //--- counted locally and reported to the progress together with the branches
+        private long branches = 0;
+        private long backtracks = 0;
+        private long pruned = 0;
+
+        Search() {
+            this.colours = new int[size];
+            Arrays.fill(this.colours, Colouring.UNCOLOURED);
+            this.forbidden = new ForbiddenColours(graph, stride);
+        }
+
+        Search(Search other) {
+            this.colours = other.colours.clone();
+            this.forbidden = new ForbiddenColours(other.forbidden);
+        }
+
+        void search(int coloured, int used) {
+            this.searchNode(coloured, used);
+            DsaturSolver.this.branches.add(this.branches);
+            this.flush(this.branches & (INTERRUPT_CHECK_INTERVAL - 1));
+            this.branches = 0;
+        }
+
+        void flush(long branches) {
+            progress.addBranches(branches);
+            progress.addBacktracks(this.backtracks);
+            progress.addPruned(this.pruned);
+            this.backtracks = 0;
+            this.pruned = 0;
+        }
+
+        private void searchNode(int coloured, int used) {
+            if(coloured == size) {
+                offer(this.colours, used);
+                return;
+            }
+
+            if(isStopped(this)) {
+                return;
+            }
+            if(used >= bestCount) {
+                this.pruned++;
+                return;
+            }
+
+            final int node = this.select();
+
+            //--- existing colours first, then one new colour, as long as the colouring can still beat the incumbent
+            for(int c = this.forbidden.nextAvailable(node, 0, Math.min(used + 1, bestCount - 1)); c != -1;
+                c = this.forbidden.nextAvailable(node, c + 1, Math.min(used + 1, bestCount - 1))) {
+                this.assign(node, c);
+                this.searchNode(coloured + 1, Math.max(used, c + 1));
+                this.unassign(node, c);
+                this.backtracks++;
+
+                if(stopped) {
+                    return;
+                }
+            }
+        }
+
+        /**
+         * Returns the uncoloured node with the highest saturation, ties are broken by the uncoloured degree.
+         */
+        int select() {
+            int node = -1;
+            int bestSaturation = -1;
+            int bestDegree = -1;
+            for(int v = 0; v < size; v++) {
+                if(this.colours[v] != Colouring.UNCOLOURED) {
+                    continue;
+                }
+                final int saturation = this.forbidden.saturation(v);
+                if(saturation > bestSaturation || (saturation == bestSaturation && this.forbidden.uncolouredDegree(v) > bestDegree)) {
+                    node = v;
+                    bestSaturation = saturation;
+                    bestDegree = this.forbidden.uncolouredDegree(v);
+                }
+            }
+            return node;
+        }
+
+        void assign(int node, int colour) {
+            this.colours[node] = colour;
+            this.forbidden.assign(node, colour);
+        }
+
+        void unassign(int node, int colour) {
+            this.colours[node] = Colouring.UNCOLOURED;
+            this.forbidden.unassign(node, colour);
+        }
+
+    }
+
+    /**
+     * One subproblem of the parallel search. It either splits into one subtask per colour of the selected node, or it
+     * searches its subtree on the current worker.
+     */
+    private class SearchTask extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+
+        private final Search search;
+        private final int coloured;
+        private final int used;
+        private final int depth;
+
+        SearchTask(Search search, int coloured, int used, int depth) {
+            this.search = search;
+            this.coloured = coloured;
+            this.used = used;
+            this.depth = depth;
+        }
+
+        @Override
+        protected void compute() {
+            if(stopped || this.used >= bestCount) {
+                return;
+            }
+            if(this.coloured == size || this.depth >= SPLIT_DEPTH || getSurplusQueuedTaskCount() >= SPLIT_SURPLUS) {
+                this.search.search(this.coloured, this.used);
+                return;
+            }
+
+            final int node = this.search.select();
+            final int limit = Math.min(this.used + 1, bestCount - 1);
+            final List<SearchTask> tasks = new ArrayList<>();
+            for(int c = this.search.forbidden.nextAvailable(node, 0, limit); c != -1; c = this.search.forbidden.nextAvailable(node, c + 1, limit)) {
+                final Search child = new Search(this.search);
+                child.assign(node, c);
+                tasks.add(new SearchTask(child, this.coloured + 1, Math.max(this.used, c + 1), this.depth + 1));
+            }
+            invokeAll(tasks);
+        }
+
+    }
+
+    /**
+     * Colours the nodes in index order, each with the lowest colour none of its neighbours has.
+     * @return The amount of colours used.
+     */
+    static int firstFit(CompactGraph graph, int[] values) {
+        Arrays.fill(values, Colouring.UNCOLOURED);
+        final int[] used = new int[graph.maxDegree() + 1];
+        int max = 0;
+        for(int v = 0; v < graph.size(); v++) {
+            for(int i = 0; i < graph.degree(v); i++) {
+                final int colour = values[graph.neighbour(v, i)];
+                if(colour != Colouring.UNCOLOURED) {
+                    used[colour] = v + 1;
+                }
+            }
+            int colour = 0;
+            while (used[colour] == v + 1) {
+                colour++;
+            }
+            values[v] = colour;
+            max = Math.max(max, colour + 1);
+        }
+        return max;
+    }
+
+    /**
+     * Renumbers the colours of a colouring to the range [0..k), keeping the order of first appearance.
+     */
+    static int[] normalise(int[] values) {
+        final int[] result = new int[values.length];
+        final Map<Integer, Integer> mapping = new HashMap<>();
+        for(int v = 0; v < values.length; v++) {
+            result[v] = mapping.computeIfAbsent(values[v], e -> mapping.size());
+        }
+        return result;
+    }
+
+    /**
+     * Finds a clique greedily, starting from each of the nodes with the highest degree and repeatedly adding the candidate
+     * with the highest degree. It works on the CSR arrays, so it also works for graphs that are too large for a bitset
+     * adjacency matrix.
+     * @return The size of the largest clique found, a lower bound of the chromatic number.
+     */
+    static int greedyClique(CompactGraph graph) {
+        if(graph.size() == 0) {
+            return 0;
+        }
+
+        final int[] order = new int[graph.size()];
+        for(int v = 0; v < order.length; v++) {
+            order[v] = v;
+        }
+        final int seeds = Math.min(CLIQUE_SEEDS, graph.size());
+        //--- a partial selection of the nodes with the highest degree is enough
+        for(int i = 0; i < seeds; i++) {
+            int max = i;
+            for(int j = i + 1; j < order.length; j++) {
+                if(graph.degree(order[j]) > graph.degree(order[max])) {
+                    max = j;
+                }
+            }
+            final int tmp = order[i];
+            order[i] = order[max];
+            order[max] = tmp;
+        }
+
+        final int[] offsets = graph.offsets();
+        final int[] targets = graph.targets();
+        final int[] candidates = new int[graph.maxDegree()];
+        final int[] next = new int[graph.maxDegree()];
+
+        int best = 1;
+        for(int s = 0; s < seeds; s++) {
+            final int seed = order[s];
+            int count = graph.degree(seed);
+            System.arraycopy(targets, offsets[seed], candidates, 0, count);
+
+            int clique = 1;
+            while (count > 0) {
+                //--- add the candidate with the highest degree, and keep the candidates that are adjacent to it
+                int pick = candidates[0];
+                for(int i = 1; i < count; i++) {
+                    if(graph.degree(candidates[i]) > graph.degree(pick)) {
+                        pick = candidates[i];
+                    }
+                }
+                clique++;
+
+                int kept = 0;
+                int j = offsets[pick];
+                final int end = offsets[pick + 1];
+                for(int i = 0; i < count; i++) {
+                    while (j < end && targets[j] < candidates[i]) {
+                        j++;
+                    }
+                    if(j < end && targets[j] == candidates[i]) {
+                        next[kept++] = candidates[i];
+                    }
+                }
+                System.arraycopy(next, 0, candidates, 0, kept);
+                count = kept;
+            }
+            best = Math.max(best, clique);
+        }
+        return best;
+    }
+
+}
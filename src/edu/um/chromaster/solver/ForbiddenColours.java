@@ -0,0 +1,141 @@
+package edu.um.chromaster.solver;
+
+import edu.um.chromaster.graph.CompactGraph;
+
+/**
+ * Keeps track of the colours every node cannot take anymore, while a search colours and uncolours nodes.
+ *
+ * For every node and colour it counts how many neighbours currently have that colour, and for the first 64 colours it
+ * additionally keeps a bitmask of the colours with a non-zero count. Colouring or uncolouring a node updates its
+ * neighbours in O(degree), afterwards checking if a colour is available, the saturation of a node, and the next
+ * available colour are O(1) as long as there are at most 64 colours.
+ *
+ * Instances are not thread-safe, parallel searches give every worker its own copy, see
+ * {@link #ForbiddenColours(ForbiddenColours)}.
+ */
+public final class ForbiddenColours {
+
+    private final int[] offsets;
+    private final int[] targets;
+    private final int colours;
+
+    //--- counts[v * colours + c] = amount of neighbours of v coloured with c
+    private final int[] counts;
+    //--- bit c is set if counts[v * colours + c] > 0, only for c < 64
+    private final long[] masks;
+    private final int[] saturation;
+    private final int[] uncolouredDegree;
+
+    /**
+     * Creates the bookkeeping for an uncoloured graph.
+     * @param graph The graph.
+     * @param colours The amount of colours, all colours have to be in the range [0..colours).
+     */
+    public ForbiddenColours(CompactGraph graph, int colours) {
+        this.offsets = graph.offsets();
+        this.targets = graph.targets();
+        this.colours = colours;
+        this.counts = new int[Math.multiplyExact(graph.size(), colours)];
+        this.masks = new long[graph.size()];
+        this.saturation = new int[graph.size()];
+        this.uncolouredDegree = new int[graph.size()];
+        for(int v = 0; v < graph.size(); v++) {
+            this.uncolouredDegree[v] = graph.degree(v);
+        }
+    }
+
+    /**
+     * Creates an independent copy.
+     */
+    public ForbiddenColours(ForbiddenColours other) {
+        this.offsets = other.offsets;
+        this.targets = other.targets;
+        this.colours = other.colours;
+        this.counts = other.counts.clone();
+        this.masks = other.masks.clone();
+        this.saturation = other.saturation.clone();
+        this.uncolouredDegree = other.uncolouredDegree.clone();
+    }
+
+    /**
+     * Marks a colour as taken by all neighbours of a node.
+     */
+    public void assign(int node, int colour) {
+        for(int i = this.offsets[node]; i < this.offsets[node + 1]; i++) {
+            final int neighbour = this.targets[i];
+            if(this.counts[neighbour * this.colours + colour]++ == 0) {
+                this.saturation[neighbour]++;
+                if(colour < Long.SIZE) {
+                    this.masks[neighbour] |= 1L << colour;
+                }
+            }
+            this.uncolouredDegree[neighbour]--;
+        }
+    }
+
+    /**
+     * Reverts {@link #assign(int, int)}.
+     */
+    public void unassign(int node, int colour) {
+        for(int i = this.offsets[node]; i < this.offsets[node + 1]; i++) {
+            final int neighbour = this.targets[i];
+            if(--this.counts[neighbour * this.colours + colour] == 0) {
+                this.saturation[neighbour]--;
+                if(colour < Long.SIZE) {
+                    this.masks[neighbour] &= ~(1L << colour);
+                }
+            }
+            this.uncolouredDegree[neighbour]++;
+        }
+    }
+
+    /**
+     * Checks if none of the neighbours of a node has the colour.
+     */
+    public boolean isAvailable(int node, int colour) {
+        return this.counts[node * this.colours + colour] == 0;
+    }
+
+    /**
+     * Returns the lowest available colour of a node in the range [from..limit).
+     * @return The colour, or -1 if all of them are forbidden.
+     */
+    public int nextAvailable(int node, int from, int limit) {
+        if(limit <= Long.SIZE) {
+            if(from >= limit) {
+                return -1;
+            }
+            final long range = (limit == Long.SIZE ? -1L : (1L << limit) - 1) & (-1L << from);
+            final long free = ~this.masks[node] & range;
+            return free == 0 ? -1 : Long.numberOfTrailingZeros(free);
+        }
+        for(int c = from; c < limit; c++) {
+            if(this.counts[node * this.colours + c] == 0) {
+                return c;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * The amount of distinct colours among the neighbours of a node.
+     */
+    public int saturation(int node) {
+        return this.saturation[node];
+    }
+
+    /**
+     * The amount of neighbours of a node that are not coloured.
+     */
+    public int uncolouredDegree(int node) {
+        return this.uncolouredDegree[node];
+    }
+
+    /**
+     * The amount of colours this bookkeeping has been created for.
+     */
+    public int colours() {
+        return this.colours;
+    }
+
+}
@@ -0,0 +1,252 @@
+package edu.um.chromaster.solver;
+
+import edu.um.chromaster.graph.CompactGraph;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Computes the chromatic number of a small graph by counting independent sets, with the inclusion-exclusion formula of
+ * Bjoerklund, Husfeldt and Koivisto (2009): with a(S) the amount of independent sets contained in the node set S, the
+ * graph can be coloured with k colours if and only if the sum over all S of (-1)^(n - |S|) * a(S)^k is positive.
+ *
+ * The running time is about 2^n, independent of how hard the graph is for a branching search, so it pays off on small
+ * graphs whose bounds are far apart. Node sets are bit masks and the solver is limited to {@link #MAX_SIZE} nodes, one
+ * sweep over all subsets computes the sums of all k in the range at once.
+ *
+ * The nodes are split into a high part, a maximum clique and then the nodes with the highest degree, and a low part of
+ * at most {@link #LOW_NODES} nodes. The amount of independent sets of every subset of the low part is kept in a table,
+ * and for a subset h of the high part a(h + l) is the sum of table[l minus the neighbours of I] over the independent
+ * subsets I of h, of which a dense high part has only a few. Every subset of the high part is one task, if the solver
+ * is created with a {@link ForkJoinPool} they run in parallel.
+ *
+ * The sums are computed modulo the prime 2^61 - 1, a positive sum that happens to be a multiple of it would be taken
+ * for 0, so the result can in theory be too high, but never too low.
+ */
+public class InclusionExclusionSolver {
+
+    /**
+     * The largest graph the solver accepts.
+     */
+    public final static int MAX_SIZE = 32;
+
+    //--- the table of the low part has 2^LOW_NODES entries, the high part gets at least HIGH_NODES nodes if the graph is
+    // large enough, one task for each of its subsets
+    private final static int LOW_NODES = 22;
+    private final static int HIGH_NODES = 8;
+    private final static int DEADLINE_CHECK_MASK = (1 << 14) - 1;
+    private final static long PRIME = (1L << 61) - 1;
+
+    private final CompactGraph graph;
+    private final ForkJoinPool pool;
+
+    private volatile Deadline deadline = Deadline.none();
+    private volatile Progress progress = new Progress();
+
+    public InclusionExclusionSolver(CompactGraph graph) {
+        this(graph, null);
+    }
+
+    /**
+     * Creates a solver that sweeps the subsets in parallel in the provided pool.
+     * @param graph The graph, with at most {@link #MAX_SIZE} nodes.
+     * @param pool The pool, or null to run on the calling thread.
+     */
+    public InclusionExclusionSolver(CompactGraph graph, ForkJoinPool pool) {
+        if(graph.size() > MAX_SIZE) {
+            throw new IllegalArgumentException("The graph has more than " + MAX_SIZE + " nodes.");
+        }
+        this.graph = graph;
+        this.pool = pool;
+    }
+
+    /**
+     * Sets the deadline of the following searches, the default one never expires.
+     */
+    public void setDeadline(Deadline deadline) {
+        this.deadline = deadline;
+    }
+
+    /**
+     * Sets the counters the following searches report the amount of subsets they have visited to, as branches.
+     */
+    public void setProgress(Progress progress) {
+        this.progress = progress;
+    }
+
+    /**
+     * Finds the chromatic number within known bounds.
+     * @param lowerBound A lower bound of the chromatic number.
+     * @param upperBound An upper bound of the chromatic number, for example the colours of a known colouring.
+     * @return The smallest k in [lowerBound..upperBound) the graph can be coloured with, upperBound if there is none, or
+     * -1 if the deadline has expired first.
+     */
+    public int solve(int lowerBound, int upperBound) {
+        final int size = this.graph.size();
+        final int lower = Math.max(lowerBound, Math.min(size, 1));
+        if(lower >= upperBound) {
+            return upperBound;
+        }
+
+        //--- high part first, the clique keeps the amount of independent subsets of the high part small
+        final int[] order = CliqueOrder.of(this.graph, this.deadline).getOrder();
+        final int high = Math.max(Math.min(HIGH_NODES, size / 2), size - LOW_NODES);
+        final int low = size - high;
+
+        //--- the high and the low neighbours of every node as masks, by position in the order
+        final int[] position = new int[size];
+        for(int i = 0; i < size; i++) {
+            position[order[i]] = i;
+        }
+        final int[] highNeighbours = new int[size];
+        final int[] lowNeighbours = new int[size];
+        for(int i = 0; i < size; i++) {
+            final int v = order[i];
+            for(int j = 0; j < this.graph.degree(v); j++) {
+                final int u = position[this.graph.neighbour(v, j)];
+                if(u < high) {
+                    highNeighbours[i] |= 1 << u;
+                } else {
+                    lowNeighbours[i] |= 1 << (u - high);
+                }
+            }
+        }
+
+        //--- independent[l] = amount of independent sets, including the empty one, contained in the low subset l
+        final int[] independent = new int[1 << low];
+        independent[0] = 1;
+        for(int l = 1; l < independent.length; l++) {
+            final int top = 31 - Integer.numberOfLeadingZeros(l);
+            final int rest = l & ~(1 << top);
+            independent[l] = independent[rest] + independent[rest & ~lowNeighbours[high + top]];
+        }
+
+        final Deadline deadline = this.deadline.child();
+        final Progress progress = this.progress;
+        final long[] sums = new long[upperBound - lower];
+        final List<RecursiveAction> tasks = new ArrayList<>(1 << high);
+        for(int h = 0; h < (1 << high); h++) {
+            final int subset = h;
+            tasks.add(new RecursiveAction() {
+                @Override
+                protected void compute() {
+                    if(deadline.poll()) {
+                        return;
+                    }
+                    final long[] partial = sweep(subset, high, low, lower, sums.length, highNeighbours, lowNeighbours, independent, deadline);
+                    synchronized (sums) {
+                        for(int k = 0; k < sums.length; k++) {
+                            sums[k] = add(sums[k], partial[k]);
+                        }
+                    }
+                    progress.addBranches(1L << low);
+                }
+            });
+        }
+
+        if(this.pool == null) {
+            for(RecursiveAction task : tasks) {
+                task.invoke();
+            }
+        } else {
+            final ForkJoinTask<Void> task = this.pool.submit(new RecursiveAction() {
+                @Override
+                protected void compute() {
+                    invokeAll(tasks);
+                }
+            });
+            try {
+                task.get();
+            } catch (InterruptedException e) {
+                deadline.cancel();
+                task.join();
+                Thread.currentThread().interrupt();
+            } catch (ExecutionException e) {
+                throw new IllegalStateException(e.getCause());
+            }
+        }
+
+        if(deadline.isExpired()) {
+            return -1;
+        }
+        for(int k = 0; k < sums.length; k++) {
+            if(sums[k] != 0) {
+                return lower + k;
+            }
+        }
+        return upperBound;
+    }
+
+    /**
+     * Adds up the terms of all node sets h + l, for one subset h of the high part and every subset l of the low part.
+     * @return The partial sums of k = lower, lower + 1, ..., lower + terms - 1 colours.
+     */
+    private static long[] sweep(int subset, int high, int low, int lower, int terms, int[] highNeighbours,
+                                int[] lowNeighbours, int[] independent, Deadline deadline) {
+        //--- every independent subset I of h, and the low nodes that are not adjacent to I
+        final int[] sets = new int[1 << Integer.bitCount(subset)];
+        final int[] masks = new int[sets.length];
+        int count = 1;
+        masks[0] = (1 << low) - 1;
+        for(int j = 0; j < high; j++) {
+            if((subset & (1 << j)) == 0) {
+                continue;
+            }
+            for(int i = count - 1; i >= 0; i--) {
+                if((sets[i] & highNeighbours[j]) == 0) {
+                    sets[count] = sets[i] | (1 << j);
+                    masks[count++] = masks[i] & ~lowNeighbours[j];
+                }
+            }
+        }
+
+        final long[] partial = new long[terms];
+        //--- the sign of a term is (-1)^(n - |h| - |l|)
+        final int parity = (high + low - Integer.bitCount(subset)) & 1;
+        for(int l = 0; l < independent.length; l++) {
+            if((l & DEADLINE_CHECK_MASK) == 0 && deadline.isExpired()) {
+                break;
+            }
+            //--- at most 2^high * 2^low, which is below the prime
+            long amount = 0;
+            for(int i = 0; i < count; i++) {
+                amount += independent[l & masks[i]];
+            }
+            final boolean negative = ((parity + Integer.bitCount(l)) & 1) == 1;
+
+            long power = 1;
+            for(int k = 1; k < lower + terms; k++) {
+                power = multiply(power, amount);
+                if(k >= lower) {
+                    partial[k - lower] = negative ? subtract(partial[k - lower], power) : add(partial[k - lower], power);
+                }
+            }
+        }
+        return partial;
+    }
+
+    private static long add(long a, long b) {
+        final long sum = a + b;
+        return sum >= PRIME ? sum - PRIME : sum;
+    }
+
+    private static long subtract(long a, long b) {
+        final long difference = a - b;
+        return difference < 0 ? difference + PRIME : difference;
+    }
+
+    /**
+     * a * b modulo 2^61 - 1, for a and b below it.
+     */
+    private static long multiply(long a, long b) {
+        final long high = Math.multiplyHigh(a, b);
+        final long low = a * b;
+        final long sum = (low & PRIME) + ((high << 3) | (low >>> 61));
+        return sum >= PRIME ? sum - PRIME : sum;
+    }
+
+}
@@ -0,0 +1,95 @@
+package edu.um.chromaster.solver;
+
+/**
+ * A set of primitive longs, an open-addressing hash table with linear probing, so adding and looking up a value does
+ * not box it and only allocates when the table grows.
+ *
+ * The value 0 marks a free slot and cannot be stored.
+ */
+final class LongSet {
+
+    private long[] slots;
+    private int size = 0;
+
+    /**
+     * Creates an empty set.
+     * @param expectedSize The amount of values that are expected to be added, used to size the table.
+     */
+    LongSet(int expectedSize) {
+        this.slots = new long[tableSize(expectedSize)];
+    }
+
+    /**
+     * Adds a value.
+     * @param value The value, not 0.
+     * @return True, if the value has not been in the set before.
+     */
+    boolean add(long value) {
+        if(value == 0) {
+            throw new IllegalArgumentException("0 cannot be stored.");
+        }
+        if(this.contains(value)) {
+            return false;
+        }
+
+        //--- keep the load factor at or below 0.5
+        if((this.size + 1) * 2 > this.slots.length) {
+            this.rehash(this.slots.length * 2);
+        }
+        this.insert(value);
+        this.size++;
+        return true;
+    }
+
+    boolean contains(long value) {
+        final int mask = this.slots.length - 1;
+        for(int slot = mix(value) & mask; ; slot = (slot + 1) & mask) {
+            final long entry = this.slots[slot];
+            if(entry == 0) {
+                return false;
+            }
+            if(entry == value) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * The amount of values in the set.
+     */
+    int size() {
+        return this.size;
+    }
+
+    private void rehash(int capacity) {
+        final long[] old = this.slots;
+        this.slots = new long[capacity];
+        for(long value : old) {
+            if(value != 0) {
+                this.insert(value);
+            }
+        }
+    }
+
+    private void insert(long value) {
+        final int mask = this.slots.length - 1;
+        int slot = mix(value) & mask;
+        while (this.slots[slot] != 0) {
+            slot = (slot + 1) & mask;
+        }
+        this.slots[slot] = value;
+    }
+
+    private static int tableSize(int capacity) {
+        return Integer.highestOneBit(Math.max(capacity, 4) * 2 - 1) << 1;
+    }
+
+    /**
+     * Spreads the bits of the value, the keys of the no-goods differ mostly in their low bits.
+     */
+    private static int mix(long value) {
+        final long h = value * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+
+}
@@ -0,0 +1,616 @@
+package edu.um.chromaster.solver;
+
+import edu.um.chromaster.graph.BitAdjacency;
+import edu.um.chromaster.graph.CompactGraph;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.IntConsumer;
+
+/**
+ * Finds a maximum clique with a branch-and-bound search over bitset node sets, in the style of MCQ/MCS (Tomita) and
+ * BBMC (San Segundo).
+ *
+ * The nodes are renumbered in reverse degeneracy order, so scanning a set in ascending order visits the nodes of the
+ * densest part of the graph first.
+ * At every level the candidate set is greedily coloured, a clique can never contain two nodes with the same colour, so
+ * the current clique plus the colour of a candidate is an upper bound of any clique containing it. Candidates are
+ * expanded from the highest colour down, and the level is cut as soon as that bound cannot beat the best clique found so
+ * far. Candidates whose colour is too low to ever beat it are not even recorded.
+ *
+ * The top level of the search is split into one branch per start node. If the solver is created with a
+ * {@link ForkJoinPool} the branches run in parallel, all of them prune against the shared best clique. The result does
+ * not depend on the timing of the branches: a branch only prunes cliques of the same size as the best one if the best
+ * one has been found by an earlier branch (in the order of the sequential search), so the returned clique is always
+ * the first maximum clique of the sequential order.
+ *
+ * The matrix needs n * n / 8 bytes, so large or sparse graphs are searched without it: the branch of a start node only
+ * contains its neighbours that come before it in the degeneracy order, at most as many as the degeneracy of the graph,
+ * and every branch builds a small matrix of just these nodes. The branches then follow the degeneracy order instead of
+ * the colour sort of the whole graph.
+ *
+ * A worker preallocates the sets of all levels, a branch borrows an idle worker and hands it back once it is done, so
+ * the search barely allocates while it runs. The workers are dropped when the search returns. A solver instance must only run one search at a time. The search checks the interrupt flag of the calling
+ * thread and its {@link Deadline} regularly, an interrupted or expired search returns the largest clique found so far,
+ * see {@link #isOptimal()}.
+ */
+public class MaxCliqueSolver {
+
+    //--- how many branch nodes are explored between two checks of the interrupt flag and the deadline
+    private final static int INTERRUPT_CHECK_INTERVAL = 1 << 10;
+
+    //--- graphs with more nodes or a lower density are searched with one small matrix per branch
+    private final static int MATRIX_NODES = 1 << 14;
+    private final static double DENSE_THRESHOLD = 0.1;
+
+    private final CompactGraph graph;
+    private final ForkJoinPool pool;
+
+    //--- the matrix of the whole graph, or null if every branch builds its own
+    private BitAdjacency adjacency;
+    //--- node 'i' of 'adjacency' is node order[i] of the graph, and node v of the graph is node position[v]
+    private int[] order;
+    private int[] position;
+    //--- the most nodes a worker searches in one branch
+    private int capacity;
+
+    //--- the start nodes of the branches, branch 'b' starts with roots[count - 1 - b]
+    private int[] roots;
+    private int[] rootColours;
+    private int rootCount;
+
+    //--- the size of the best clique in the upper 32 bits, the branch that found it in the lower 32 bits
+    private volatile long incumbent;
+    private int[] best;
+
+    //--- the workers that are not running a branch, at most one per thread of the search
+    private Queue<Worker> idle;
+    private final LongAdder branches = new LongAdder();
+    private volatile boolean stopped = false;
+    private volatile Thread caller;
+    private volatile Deadline deadline = Deadline.none();
+    private volatile IntConsumer listener;
+    private volatile Progress progress = new Progress();
+
+    /**
+     * Creates a solver that searches on the calling thread.
+     */
+    public MaxCliqueSolver(CompactGraph graph) {
+        this(graph, null);
+    }
+
+    /**
+     * Creates a solver that runs the top-level branches in parallel in the provided pool.
+     * @param graph The graph.
+     * @param pool The pool, or null to search on the calling thread.
+     */
+    public MaxCliqueSolver(CompactGraph graph, ForkJoinPool pool) {
+        this.graph = graph;
+        this.pool = pool;
+    }
+
+    /**
+     * Sets the deadline of the following searches, the default one never expires.
+     */
+    public void setDeadline(Deadline deadline) {
+        this.deadline = deadline;
+    }
+
+    /**
+     * Sets a listener that is called with the size of every larger clique as soon as it is found, from the thread that
+     * found it, or null to remove it.
+     */
+    public void setListener(IntConsumer listener) {
+        this.listener = listener;
+    }
+
+    /**
+     * Sets the counters the following searches report their branches and the clique size as a lower bound to.
+     */
+    public void setProgress(Progress progress) {
+        this.progress = progress;
+    }
+
+    /**
+     * Finds a maximum clique.
+     * @return Never null, the dense indices of the nodes of the clique, sorted ascending. The size of the clique is the
+     * length of the array.
+     */
+    public int[] solve() {
+        this.branches.reset();
+        this.stopped = false;
+        this.caller = Thread.currentThread();
+        this.incumbent = pack(0, Integer.MAX_VALUE);
+
+        final int size = this.graph.size();
+        if(size == 0) {
+            return new int[0];
+        }
+
+        this.order = degeneracyOrder(this.graph);
+        this.position = new int[size];
+        for(int i = 0; i < size; i++) {
+            this.position[this.order[i]] = i;
+        }
+        this.best = new int[size];
+
+        if(size <= MATRIX_NODES && this.graph.density() >= DENSE_THRESHOLD) {
+            this.adjacency = BitAdjacency.of(this.graph, this.order, size, this.position);
+            this.capacity = size;
+            this.idle = new ConcurrentLinkedQueue<>();
+
+            //--- the colour sort of the whole graph decides the start nodes and their order
+            final Worker root = new Worker();
+            root.sets[0] = this.adjacency.fullSet();
+            this.rootCount = root.colourSort(0, root.sets[0], 0);
+            this.roots = root.candidates[0].clone();
+            this.rootColours = root.colours[0].clone();
+            this.idle.add(root);
+        } else {
+            //--- the start nodes follow the degeneracy order, the last node of it has the first branch
+            this.adjacency = null;
+            this.capacity = 0;
+            for(int v = 0; v < size; v++) {
+                this.capacity = Math.max(this.capacity, this.earlierNeighbours(v));
+            }
+            this.idle = new ConcurrentLinkedQueue<>();
+            this.rootCount = size;
+            this.roots = null;
+            this.rootColours = null;
+        }
+
+        if(this.pool == null) {
+            for(int branch = 0; branch < this.rootCount && !this.stopped; branch++) {
+                this.branch(branch);
+            }
+        } else {
+            this.parallel();
+        }
+        this.idle = null;
+
+        final int bestSize = size(this.incumbent);
+        final int[] members = new int[bestSize];
+        synchronized (this) {
+            for(int i = 0; i < bestSize; i++) {
+                members[i] = this.order[this.best[i]];
+            }
+        }
+        Arrays.sort(members);
+        return members;
+    }
+
+    /**
+     * Checks if the last clique returned by {@link #solve()} is proven to be a maximum clique.
+     */
+    public boolean isOptimal() {
+        return !this.stopped;
+    }
+
+    /**
+     * The amount of branch nodes explored by the last call of {@link #solve()}, summed over all workers.
+     */
+    public long getBranches() {
+        return this.branches.sum();
+    }
+
+    /**
+     * Runs a branch on an idle worker, or on a new one if all of them are busy.
+     */
+    private void branch(int branch) {
+        Worker worker = this.idle.poll();
+        if(worker == null) {
+            worker = new Worker();
+        }
+        worker.branch(branch);
+        this.idle.add(worker);
+    }
+
+    private void parallel() {
+        final List<RecursiveAction> tasks = new ArrayList<>(this.rootCount);
+        for(int branch = 0; branch < this.rootCount; branch++) {
+            final int b = branch;
+            tasks.add(new RecursiveAction() {
+                @Override
+                protected void compute() {
+                    MaxCliqueSolver.this.branch(b);
+                }
+            });
+        }
+
+        final ForkJoinTask<Void> task = this.pool.submit(new RecursiveAction() {
+            @Override
+            protected void compute() {
+                invokeAll(tasks);
+            }
+        });
+        try {
+            task.get();
+        } catch (InterruptedException e) {
+            //--- stop all workers, and wait for them, so none of them touches the incumbent afterwards
+            this.stopped = true;
+            task.join();
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    /**
+     * The amount of neighbours of a node that come before it in the degeneracy order.
+     */
+    private int earlierNeighbours(int node) {
+        int count = 0;
+        for(int j = 0; j < this.graph.degree(node); j++) {
+            if(this.position[this.graph.neighbour(node, j)] < this.position[node]) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * The largest clique size the provided branch still has to beat: cliques of the same size as the best one are only
+     * interesting if the best one has been found by a later branch.
+     */
+    private int limit(int branch) {
+        final long incumbent = this.incumbent;
+        return branch(incumbent) <= branch ? size(incumbent) : size(incumbent) - 1;
+    }
+
+    /**
+     * Stores a clique as the new best one, if it is larger, or as large but found by an earlier branch.
+     */
+    private synchronized void offer(int[] clique, int size, int branch) {
+        final long incumbent = this.incumbent;
+        if(size > size(incumbent) || (size == size(incumbent) && branch < branch(incumbent))) {
+            System.arraycopy(clique, 0, this.best, 0, size);
+            this.incumbent = pack(size, branch);
+
+            if(size > size(incumbent)) {
+                this.progress.improveLower(size);
+                final IntConsumer listener = this.listener;
+                if(listener != null) {
+                    listener.accept(size);
+                }
+            }
+        }
+    }
+
+    private static long pack(int size, int branch) {
+        return ((long) size << 32) | (branch & 0xFFFFFFFFL);
+    }
+
+    private static int size(long incumbent) {
+        return (int) (incumbent >>> 32);
+    }
+
+    private static int branch(long incumbent) {
+        return (int) incumbent;
+    }
+
+    /**
+     * The per-level sets and arrays of one worker thread.
+     */
+    private class Worker {
+
+        private final long[][] sets;
+        private final int[][] candidates;
+        private final int[][] colours;
+        //--- scratch sets of the greedy colouring
+        private long[] uncoloured;
+        private long[] colourClass;
+        private final int[] clique;
+
+        //--- the matrix the worker searches. For a matrix of a single branch: the position in the order and the node of the
+        // graph of each of its nodes, the index in it of every node of the graph or -1, and the clique in positions
+        private BitAdjacency adjacency;
+        private final int[] members;
+        private final int[] nodes;
+        private final int[] local;
+        private final int[] found;
+
+        private int branch;
+        //--- counted locally and reported to the progress together with the branches
+        private long branches = 0;
+        private long backtracks = 0;
+        private long pruned = 0;
+
+        Worker() {
+            this.sets = new long[capacity + 2][];
+            this.candidates = new int[capacity + 2][];
+            this.colours = new int[capacity + 2][];
+            this.clique = new int[capacity + 1];
+            this.adjacency = MaxCliqueSolver.this.adjacency;
+            if(this.adjacency == null) {
+                this.members = new int[capacity];
+                this.nodes = new int[capacity];
+                this.local = new int[graph.size()];
+                this.found = new int[capacity + 1];
+                Arrays.fill(this.local, -1);
+            } else {
+                this.members = null;
+                this.nodes = null;
+                this.local = null;
+                this.found = null;
+                this.uncoloured = this.adjacency.newSet();
+                this.colourClass = this.adjacency.newSet();
+            }
+        }
+
+        /**
+         * Searches all cliques that contain the start node of the branch, but none of the start nodes of earlier branches.
+         */
+        void branch(int branch) {
+            this.branch = branch;
+            if(this.members != null) {
+                this.sparseBranch(branch);
+                return;
+            }
+            final int index = rootCount - 1 - branch;
+            if(stopped) {
+                return;
+            }
+            if(rootColours[index] <= limit(branch)) {
+                progress.addPruned(1);
+                return;
+            }
+
+            //--- the candidates are the neighbours of the start node, minus the start nodes of the earlier branches
+            if(this.sets[0] == null) {
+                this.sets[0] = this.adjacency.newSet();
+            }
+            final long[] set = this.sets[0];
+            Arrays.fill(set, 0);
+            for(int i = 0; i <= index; i++) {
+                BitAdjacency.add(set, roots[i]);
+            }
+
+            final int node = roots[index];
+            this.clique[0] = node;
+            if(this.sets[1] == null) {
+                this.sets[1] = this.adjacency.newSet();
+            }
+            if(this.adjacency.intersect(node, set, this.sets[1]) == 0) {
+                this.offer(1);
+            } else {
+                this.expand(1);
+            }
+            this.finish();
+        }
+
+        /**
+         * Like {@link #branch(int)}, for a graph without a matrix: the candidates are the neighbours of the start node that
+         * come before it in the degeneracy order, and the branch searches a matrix of only these nodes.
+         */
+        private void sparseBranch(int branch) {
+            final int root = order.length - 1 - branch;
+            if(stopped) {
+                return;
+            }
+
+            final int node = order[root];
+            int count = 0;
+            for(int j = 0; j < graph.degree(node); j++) {
+                final int neighbour = position[graph.neighbour(node, j)];
+                if(neighbour < root) {
+                    this.members[count++] = neighbour;
+                }
+            }
+            if(count + 1 <= limit(branch)) {
+                progress.addPruned(1);
+                return;
+            }
+
+            //--- the matrix keeps the degeneracy order, so the densest nodes are still scanned first
+            Arrays.sort(this.members, 0, count);
+            for(int i = 0; i < count; i++) {
+                this.nodes[i] = order[this.members[i]];
+                this.local[this.nodes[i]] = i;
+            }
+            final BitAdjacency adjacency = BitAdjacency.of(graph, this.nodes, count, this.local);
+            for(int i = 0; i < count; i++) {
+                this.local[this.nodes[i]] = -1;
+            }
+            this.use(adjacency);
+
+            this.clique[0] = root;
+            if(count == 0) {
+                this.offer(1);
+            } else {
+                if(this.sets[1] == null) {
+                    this.sets[1] = adjacency.newSet();
+                }
+                Arrays.fill(this.sets[1], 0);
+                for(int i = 0; i < count; i++) {
+                    BitAdjacency.add(this.sets[1], i);
+                }
+                this.expand(1);
+            }
+            this.finish();
+        }
+
+        /**
+         * Switches to the matrix of another branch, the sets are only reallocated if it needs a different amount of words.
+         */
+        private void use(BitAdjacency adjacency) {
+            if(this.uncoloured == null || this.uncoloured.length != adjacency.words()) {
+                Arrays.fill(this.sets, null);
+                this.uncoloured = adjacency.newSet();
+                this.colourClass = adjacency.newSet();
+            }
+            this.adjacency = adjacency;
+        }
+
+        private void finish() {
+            MaxCliqueSolver.this.branches.add(this.branches);
+            this.flush(this.branches & (INTERRUPT_CHECK_INTERVAL - 1));
+            this.branches = 0;
+        }
+
+        /**
+         * Offers the current clique, with the nodes of a branch matrix translated back to the whole order.
+         */
+        private void offer(int size) {
+            if(this.members == null) {
+                MaxCliqueSolver.this.offer(this.clique, size, this.branch);
+                return;
+            }
+            this.found[0] = this.clique[0];
+            for(int i = 1; i < size; i++) {
+                this.found[i] = this.members[this.clique[i]];
+            }
+            MaxCliqueSolver.this.offer(this.found, size, this.branch);
+        }
+
+        private void flush(long branches) {
+            progress.addBranches(branches);
+            progress.addBacktracks(this.backtracks);
+            progress.addPruned(this.pruned);
+            this.backtracks = 0;
+            this.pruned = 0;
+        }
+
+        private void expand(int depth) {
+            if((++this.branches & (INTERRUPT_CHECK_INTERVAL - 1)) == 0) {
+                this.flush(INTERRUPT_CHECK_INTERVAL);
+                if(caller.isInterrupted() || deadline.isExpired()) {
+                    stopped = true;
+                }
+            }
+            if(stopped) {
+                return;
+            }
+
+            final long[] set = this.sets[depth];
+            final int count = this.colourSort(depth, set, limit(this.branch));
+            final int[] candidates = this.candidates[depth];
+            final int[] colours = this.colours[depth];
+
+            if(this.sets[depth + 1] == null) {
+                this.sets[depth + 1] = this.adjacency.newSet();
+            }
+            final long[] next = this.sets[depth + 1];
+
+            for(int i = count - 1; i >= 0; i--) {
+                //--- no clique in the rest of the candidates can be larger than the best one
+                if(depth + colours[i] <= limit(this.branch)) {
+                    this.pruned += i + 1;
+                    return;
+                }
+
+                final int node = candidates[i];
+                this.clique[depth] = node;
+                if(this.adjacency.intersect(node, set, next) == 0) {
+                    if(depth + 1 > limit(this.branch)) {
+                        this.offer(depth + 1);
+                    }
+                } else {
+                    this.expand(depth + 1);
+                    this.backtracks++;
+                    if(stopped) {
+                        return;
+                    }
+                }
+                BitAdjacency.remove(set, node);
+            }
+        }
+
+        /**
+         * Colours the candidates greedily, one colour class after the other, and records them in the order they have been
+         * coloured. Candidates that would need a colour that cannot beat the limit are skipped.
+         * @return The amount of recorded candidates.
+         */
+        int colourSort(int depth, long[] set, int limit) {
+            if(this.candidates[depth] == null) {
+                this.candidates[depth] = new int[capacity];
+                this.colours[depth] = new int[capacity];
+            }
+            final int[] candidates = this.candidates[depth];
+            final int[] colours = this.colours[depth];
+            final int threshold = limit - depth + 1;
+
+            System.arraycopy(set, 0, this.uncoloured, 0, set.length);
+            int count = 0;
+            int colour = 0;
+            while (!BitAdjacency.isEmpty(this.uncoloured)) {
+                colour++;
+                System.arraycopy(this.uncoloured, 0, this.colourClass, 0, set.length);
+                for(int node = BitAdjacency.nextSetBit(this.colourClass, 0); node != -1; node = BitAdjacency.nextSetBit(this.colourClass, node + 1)) {
+                    BitAdjacency.remove(this.uncoloured, node);
+                    this.adjacency.removeNeighbours(node, this.colourClass);
+                    if(colour >= threshold) {
+                        candidates[count] = node;
+                        colours[count] = colour;
+                        count++;
+                    }
+                }
+            }
+            return count;
+        }
+
+    }
+
+    /**
+     * Returns all node indices in reverse degeneracy order: the node with the smallest degree is removed from the graph
+     * and put at the end, repeatedly, so the front of the order holds the densest core of the graph.
+     */
+    static int[] degeneracyOrder(CompactGraph graph) {
+        final int size = graph.size();
+        final int[] degree = new int[size];
+        int maxDegree = 0;
+        for(int v = 0; v < size; v++) {
+            degree[v] = graph.degree(v);
+            maxDegree = Math.max(maxDegree, degree[v]);
+        }
+
+        //--- bucket queue over the current degrees, with 'position' pointing into 'nodes' so a node can move buckets in O(1)
+        final int[] start = new int[maxDegree + 2];
+        for(int v = 0; v < size; v++) {
+            start[degree[v] + 1]++;
+        }
+        for(int d = 1; d < start.length; d++) {
+            start[d] += start[d - 1];
+        }
+        final int[] nodes = new int[size];
+        final int[] position = new int[size];
+        final int[] fill = Arrays.copyOf(start, start.length);
+        for(int v = 0; v < size; v++) {
+            position[v] = fill[degree[v]]++;
+            nodes[position[v]] = v;
+        }
+
+        //--- Batagelj and Zaversnik: the nodes are taken from the front, their degree never exceeds the one of a later node
+        final int[] order = new int[size];
+        for(int i = 0; i < size; i++) {
+            final int node = nodes[i];
+            order[size - 1 - i] = node;
+
+            for(int j = 0; j < graph.degree(node); j++) {
+                final int neighbour = graph.neighbour(node, j);
+                if(degree[neighbour] <= degree[node]) {
+                    continue;
+                }
+                //--- swap the neighbour with the first node of its bucket, then move the bucket boundary past it
+                final int d = degree[neighbour];
+                final int first = start[d];
+                final int other = nodes[first];
+                nodes[first] = neighbour;
+                nodes[position[neighbour]] = other;
+                position[other] = position[neighbour];
+                position[neighbour] = first;
+                start[d]++;
+                degree[neighbour]--;
+            }
+        }
+        return order;
+    }
+
+}
@@ -0,0 +1,129 @@
+package edu.um.chromaster.solver;
+
+import java.util.ArrayList;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Live counters of one computation of the chromatic number, shared by all solvers that work on it, so they can be read
+ * while it runs. {@link #snapshot()} turns them into the {@link SolverStats} of the result.
+ *
+ * Solvers report their explored branch nodes, backtracks and pruned subtrees in batches, so the counts lag behind by at
+ * most a few thousand per worker. Bounds only ever improve, the lower bound grows and the upper bound shrinks, and every
+ * improvement is kept in a timeline.
+ */
+public final class Progress {
+
+    private final long start = System.nanoTime();
+
+    private final LongAdder branches = new LongAdder();
+    private final LongAdder backtracks = new LongAdder();
+    private final LongAdder pruned = new LongAdder();
+    private final AtomicLongArray phaseNanos = new AtomicLongArray(SolverStats.Phase.values().length);
+
+    private final AtomicInteger lower = new AtomicInteger(-1);
+    private final AtomicInteger upper = new AtomicInteger(Integer.MAX_VALUE);
+    private final Queue<SolverStats.Bound> timeline = new ConcurrentLinkedQueue<>();
+    private volatile UpperBoundPortfolio.Heuristic heuristic;
+
+    //--- the threads that have reported to this instance, the thread local saves the lookup in the set
+    private final Set<Long> threads = ConcurrentHashMap.newKeySet();
+    private final ThreadLocal<Boolean> registered = ThreadLocal.withInitial(() -> Boolean.FALSE);
+
+    public void addBranches(long branches) {
+        this.register();
+        this.branches.add(branches);
+    }
+
+    public void addBacktracks(long backtracks) {
+        this.register();
+        this.backtracks.add(backtracks);
+    }
+
+    public void addPruned(long pruned) {
+        this.register();
+        this.pruned.add(pruned);
+    }
+
+    /**
+     * Adds the time a phase has taken.
+     * @param nanos The time, in nanoseconds.
+     */
+    public void addPhaseTime(SolverStats.Phase phase, long nanos) {
+        this.phaseNanos.addAndGet(phase.ordinal(), nanos);
+    }
+
+    /**
+     * The amount of branch nodes explored so far, summed over all solvers and workers.
+     */
+    public long getBranches() {
+        return this.branches.sum();
+    }
+
+    /**
+     * Reports a lower bound of the chromatic number, it is ignored if a better one is known.
+     */
+    public void improveLower(int lower) {
+        this.register();
+        if(this.lower.getAndAccumulate(lower, Math::max) < lower) {
+            this.timeline.add(new SolverStats.Bound(System.nanoTime() - this.start, this.getLower(), this.getUpper()));
+        }
+    }
+
+    /**
+     * Reports an upper bound of the chromatic number, it is ignored if a better one is known.
+     */
+    public void improveUpper(int upper) {
+        this.register();
+        if(this.upper.getAndAccumulate(upper, Math::min) > upper) {
+            this.timeline.add(new SolverStats.Bound(System.nanoTime() - this.start, this.getLower(), this.getUpper()));
+        }
+    }
+
+    /**
+     * Reports the heuristic of the {@link UpperBoundPortfolio} whose colouring the upper bound has started from.
+     */
+    public void setHeuristic(UpperBoundPortfolio.Heuristic heuristic) {
+        this.heuristic = heuristic;
+    }
+
+    /**
+     * The best known lower bound, or -1 if none has been reported yet.
+     */
+    public int getLower() {
+        return this.lower.get();
+    }
+
+    /**
+     * The best known upper bound, or -1 if none has been reported yet.
+     */
+    public int getUpper() {
+        final int upper = this.upper.get();
+        return upper == Integer.MAX_VALUE ? -1 : upper;
+    }
+
+    /**
+     * The counters as they are now.
+     */
+    public SolverStats snapshot() {
+        final long[] phases = new long[this.phaseNanos.length()];
+        for(int i = 0; i < phases.length; i++) {
+            phases[i] = this.phaseNanos.get(i);
+        }
+        return new SolverStats(System.nanoTime() - this.start, this.branches.sum(), this.backtracks.sum(), this.pruned.sum(),
+                phases, new ArrayList<>(this.timeline), this.threads.size(), this.heuristic);
+    }
+
+    private void register() {
+        if(!this.registered.get()) {
+            this.registered.set(Boolean.TRUE);
+            this.threads.add(Thread.currentThread().getId());
+        }
+    }
+
+}
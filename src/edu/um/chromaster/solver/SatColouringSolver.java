@@ -0,0 +1,128 @@
+package edu.um.chromaster.solver;
+
+import edu.um.chromaster.graph.Colouring;
+import edu.um.chromaster.graph.CompactGraph;
+
+/**
+ * Decides if a graph can be coloured with k colours by encoding the question for {@link SatSolver}.
+ *
+ * The variable {@code v * k + c} is true if the node v has the colour c. Every node gets at least one colour, and no two
+ * adjacent nodes get the same one. A node with more than one true colour can take any of them, so there are no
+ * at-most-one clauses.
+ *
+ * The colours are interchangeable, so the encoding breaks that symmetry: the nodes of a large clique are fixed to the
+ * colours 0, 1, 2, ..., and the other nodes follow them ordered by decreasing degree. Every colouring can be renumbered
+ * so that the colours appear in that node order, so the node at position i only needs the colours [0..i].
+ */
+public class SatColouringSolver {
+
+    private final CompactGraph graph;
+
+    private volatile Deadline deadline = Deadline.none();
+    private volatile Progress progress = new Progress();
+
+    //--- the clique first, then all other nodes by decreasing degree, found once and shared by all k
+    private int[] order;
+    private int cliqueSize;
+    private long conflicts;
+
+    public SatColouringSolver(CompactGraph graph) {
+        this.graph = graph;
+    }
+
+    /**
+     * Sets the deadline of the following searches, the default one never expires.
+     */
+    public void setDeadline(Deadline deadline) {
+        this.deadline = deadline;
+    }
+
+    /**
+     * Sets the counters the following searches report their conflicts to.
+     */
+    public void setProgress(Progress progress) {
+        this.progress = progress;
+    }
+
+    /**
+     * Tries to colour the graph with the provided amount of colours.
+     * @return The colouring, with colours in the range [0..colours), or null, if the graph cannot be coloured with that
+     * many colours, or the deadline has expired.
+     */
+    public Colouring colour(int colours) {
+        final int size = this.graph.size();
+        if(this.order == null) {
+            this.order();
+        }
+        if(colours < this.cliqueSize || (colours == 0 && size > 0)) {
+            return null;
+        }
+
+        final SatSolver solver = new SatSolver(Math.multiplyExact(size, colours));
+        solver.setDeadline(this.deadline);
+        solver.setProgress(this.progress);
+
+        final int[] allowed = new int[size];
+        for(int i = 0; i < size; i++) {
+            final int node = this.order[i];
+            allowed[node] = Math.min(i + 1, colours);
+
+            if(i < this.cliqueSize) {
+                solver.addClause(SatSolver.literal(node * colours + i, true));
+            }
+            final int[] clause = new int[allowed[node]];
+            for(int c = 0; c < clause.length; c++) {
+                clause[c] = SatSolver.literal(node * colours + c, true);
+            }
+            solver.addClause(clause);
+            for(int c = allowed[node]; c < colours; c++) {
+                solver.addClause(SatSolver.literal(node * colours + c, false));
+            }
+        }
+
+        for(int v = 0; v < size; v++) {
+            for(int i = 0; i < this.graph.degree(v); i++) {
+                final int u = this.graph.neighbour(v, i);
+                if(u <= v) {
+                    continue;
+                }
+                for(int c = 0; c < Math.min(allowed[v], allowed[u]); c++) {
+                    solver.addClause(SatSolver.literal(v * colours + c, false), SatSolver.literal(u * colours + c, false));
+                }
+            }
+        }
+
+        final SatSolver.Result result = solver.solve();
+        this.conflicts += solver.getConflicts();
+        if(result != SatSolver.Result.SATISFIABLE) {
+            return null;
+        }
+
+        final int[] values = new int[size];
+        for(int v = 0; v < size; v++) {
+            int colour = 0;
+            while (!solver.value(v * colours + colour)) {
+                colour++;
+            }
+            values[v] = colour;
+        }
+        return Colouring.wrap(values);
+    }
+
+    /**
+     * The amount of conflicts of all calls of {@link #colour(int)} so far.
+     */
+    public long getConflicts() {
+        return this.conflicts;
+    }
+
+    /**
+     * Puts the nodes of a maximum clique first, see {@link CliqueOrder}.
+     */
+    private void order() {
+        final CliqueOrder order = CliqueOrder.of(this.graph, this.deadline);
+        this.order = order.getOrder();
+        this.cliqueSize = order.getCliqueSize();
+    }
+
+}
@@ -0,0 +1,597 @@
+package edu.um.chromaster.solver;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * A small CDCL SAT solver in the style of MiniSat (Een and Soerensson, 2003).
+ *
+ * Variables are numbered from 0, a literal is {@code 2 * variable} if it is positive and {@code 2 * variable + 1} if it
+ * is negated, see {@link #literal(int, boolean)}. Clauses are added with {@link #addClause(int...)} before calling
+ * {@link #solve()}.
+ *
+ * The solver uses two watched literals per clause for unit propagation, learns a first-UIP clause from every conflict
+ * and jumps back to the second highest level of it, picks the next decision by VSIDS activity with phase saving,
+ * restarts after a Luby sequence of conflicts, and regularly drops half of the learned clauses with the highest literal
+ * block distance. It checks its {@link Deadline} once per conflict, an expired search returns
+ * {@link Result#UNKNOWN}.
+ *
+ * Instances are not thread-safe, and a solver can only solve once.
+ */
+public final class SatSolver {
+
+    public enum Result {
+        SATISFIABLE,
+        UNSATISFIABLE,
+        UNKNOWN
+    }
+
+    //--- restart after RESTART_BASE * luby(i) conflicts
+    private final static int RESTART_BASE = 100;
+    //--- the learned clauses are reduced once there are this many more than at the last reduction
+    private final static int REDUCE_BASE = 2000;
+    private final static int REDUCE_INCREMENT = 300;
+    //--- learned clauses with at most this block distance are never dropped
+    private final static int GLUE_LBD = 2;
+    private final static double VARIABLE_DECAY = 0.95;
+    private final static double RESCALE_LIMIT = 1e100;
+
+    private final static byte UNASSIGNED = 0;
+    private final static byte TRUE = 1;
+    private final static byte FALSE = -1;
+
+    private final int variables;
+
+    //--- clauses by index, null once deleted. The first two literals of a clause are watched, and the first literal of a
+    // reason clause is the one it has implied.
+    private int[][] clauses = new int[64][];
+    private int[] lbd = new int[64];
+    private boolean[] learnt = new boolean[64];
+    private int clauseCount = 0;
+    private int learntCount = 0;
+
+    //--- watches[l] = the clauses that watch the literal l, they are visited once l becomes false
+    private final int[][] watches;
+    private final int[] watchCount;
+
+    private final byte[] values;
+    private final int[] level;
+    private final int[] reason;
+    private final boolean[] phase;
+
+    private final int[] trail;
+    private int trailSize = 0;
+    private int propagated = 0;
+    private int[] levelStart = new int[64];
+    private int decisionLevel = 0;
+
+    //--- the unassigned variables, a binary max-heap on the activity
+    private final double[] activity;
+    private double increment = 1;
+    private final int[] heap;
+    private final int[] heapIndex;
+    private int heapSize = 0;
+
+    //--- scratch space of the conflict analysis
+    private final boolean[] seen;
+    private final int[] levelStamp;
+    private int stamp = 0;
+
+    private boolean inconsistent = false;
+    private long conflicts = 0;
+
+    private volatile Deadline deadline = Deadline.none();
+    private volatile Progress progress = new Progress();
+
+    /**
+     * Creates a solver without clauses.
+     * @param variables The amount of variables.
+     */
+    public SatSolver(int variables) {
+        this.variables = variables;
+        this.watches = new int[2 * variables][];
+        this.watchCount = new int[2 * variables];
+        this.values = new byte[variables];
+        this.level = new int[variables];
+        this.reason = new int[variables];
+        this.phase = new boolean[variables];
+        this.trail = new int[variables];
+        this.activity = new double[variables];
+        this.heap = new int[variables];
+        this.heapIndex = new int[variables];
+        this.seen = new boolean[variables];
+        this.levelStamp = new int[variables + 1];
+        Arrays.fill(this.reason, -1);
+        for(int v = 0; v < variables; v++) {
+            this.heapIndex[v] = -1;
+            this.heapInsert(v);
+        }
+    }
+
+    /**
+     * Sets the deadline of the search, the default one never expires.
+     */
+    public void setDeadline(Deadline deadline) {
+        this.deadline = deadline;
+    }
+
+    /**
+     * Sets the counters the search reports its conflicts to, as branches and as backtracks.
+     */
+    public void setProgress(Progress progress) {
+        this.progress = progress;
+    }
+
+    public static int literal(int variable, boolean positive) {
+        return 2 * variable + (positive ? 0 : 1);
+    }
+
+    /**
+     * Adds a clause, the disjunction of the provided literals. Clauses can only be added before {@link #solve()}.
+     */
+    public void addClause(int... literals) {
+        if(this.inconsistent) {
+            return;
+        }
+
+        //--- drop false literals and duplicates, skip satisfied clauses and tautologies
+        final int[] clause = new int[literals.length];
+        int size = 0;
+        for(int literal : literals) {
+            final byte value = this.valueOf(literal);
+            if(value == TRUE) {
+                return;
+            }
+            if(value == FALSE) {
+                continue;
+            }
+            boolean duplicate = false;
+            for(int i = 0; i < size; i++) {
+                if(clause[i] == (literal ^ 1)) {
+                    return;
+                }
+                duplicate |= clause[i] == literal;
+            }
+            if(!duplicate) {
+                clause[size++] = literal;
+            }
+        }
+
+        if(size == 0) {
+            this.inconsistent = true;
+        } else if(size == 1) {
+            this.assign(clause[0], -1);
+        } else {
+            this.attach(Arrays.copyOf(clause, size), false, 0);
+        }
+    }
+
+    /**
+     * Searches a satisfying assignment.
+     * @return Never null, {@link Result#UNKNOWN} if the deadline has expired first.
+     */
+    public Result solve() {
+        if(this.inconsistent || this.propagate() != -1) {
+            return Result.UNSATISFIABLE;
+        }
+
+        int restart = 1;
+        long restartAt = RESTART_BASE * luby(restart);
+        long conflictsSinceRestart = 0;
+        int reduceAt = REDUCE_BASE;
+
+        while (true) {
+            final int conflict = this.propagate();
+            if(conflict != -1) {
+                this.conflicts++;
+                conflictsSinceRestart++;
+                //--- every conflict undoes at least the last decision
+                this.progress.addBranches(1);
+                this.progress.addBacktracks(1);
+                if(this.decisionLevel == 0) {
+                    return Result.UNSATISFIABLE;
+                }
+                this.learn(conflict);
+                if(this.deadline.poll()) {
+                    return Result.UNKNOWN;
+                }
+                continue;
+            }
+
+            if(conflictsSinceRestart >= restartAt) {
+                this.backtrack(0);
+                restartAt = RESTART_BASE * luby(++restart);
+                conflictsSinceRestart = 0;
+            }
+            if(this.learntCount >= reduceAt) {
+                this.reduce();
+                reduceAt = this.learntCount + REDUCE_BASE + REDUCE_INCREMENT * restart;
+            }
+
+            //--- decide
+            int variable = -1;
+            while (this.heapSize > 0) {
+                final int candidate = this.heapRemoveMax();
+                if(this.values[candidate] == UNASSIGNED) {
+                    variable = candidate;
+                    break;
+                }
+            }
+            if(variable == -1) {
+                return Result.SATISFIABLE;
+            }
+            this.newLevel();
+            this.assign(literal(variable, this.phase[variable]), -1);
+        }
+    }
+
+    /**
+     * The value of a variable in the satisfying assignment found by {@link #solve()}.
+     */
+    public boolean value(int variable) {
+        return this.values[variable] == TRUE;
+    }
+
+    /**
+     * The amount of conflicts of the last call of {@link #solve()}.
+     */
+    public long getConflicts() {
+        return this.conflicts;
+    }
+
+    //--- Assignment
+
+    private byte valueOf(int literal) {
+        final byte value = this.values[literal >> 1];
+        return (literal & 1) == 0 ? value : (byte) -value;
+    }
+
+    private void assign(int literal, int reason) {
+        final int variable = literal >> 1;
+        this.values[variable] = (literal & 1) == 0 ? TRUE : FALSE;
+        this.level[variable] = this.decisionLevel;
+        this.reason[variable] = reason;
+        this.trail[this.trailSize++] = literal;
+    }
+
+    private void newLevel() {
+        if(this.decisionLevel + 1 >= this.levelStart.length) {
+            this.levelStart = Arrays.copyOf(this.levelStart, this.levelStart.length * 2);
+        }
+        this.levelStart[++this.decisionLevel] = this.trailSize;
+    }
+
+    /**
+     * Undoes all assignments above the provided decision level.
+     */
+    private void backtrack(int level) {
+        if(this.decisionLevel <= level) {
+            return;
+        }
+        for(int i = this.trailSize - 1; i >= this.levelStart[level + 1]; i--) {
+            final int variable = this.trail[i] >> 1;
+            this.phase[variable] = (this.trail[i] & 1) == 0;
+            this.values[variable] = UNASSIGNED;
+            this.reason[variable] = -1;
+            if(this.heapIndex[variable] == -1) {
+                this.heapInsert(variable);
+            }
+        }
+        this.trailSize = this.levelStart[level + 1];
+        this.propagated = this.trailSize;
+        this.decisionLevel = level;
+    }
+
+    //--- Propagation
+
+    /**
+     * Propagates all assignments on the trail.
+     * @return The index of a conflicting clause, or -1.
+     */
+    private int propagate() {
+        while (this.propagated < this.trailSize) {
+            final int falseLiteral = this.trail[this.propagated++] ^ 1;
+            final int[] watching = this.watches[falseLiteral];
+            final int count = this.watchCount[falseLiteral];
+
+            int kept = 0;
+            for(int i = 0; i < count; i++) {
+                final int index = watching[i];
+                final int[] clause = this.clauses[index];
+                if(clause == null) {
+                    continue;
+                }
+
+                //--- make sure the false literal is the second one
+                if(clause[0] == falseLiteral) {
+                    clause[0] = clause[1];
+                    clause[1] = falseLiteral;
+                }
+                if(this.valueOf(clause[0]) == TRUE) {
+                    watching[kept++] = index;
+                    continue;
+                }
+
+                //--- look for a new literal to watch
+                boolean moved = false;
+                for(int j = 2; j < clause.length; j++) {
+                    if(this.valueOf(clause[j]) != FALSE) {
+                        clause[1] = clause[j];
+                        clause[j] = falseLiteral;
+                        this.watch(clause[1], index);
+                        moved = true;
+                        break;
+                    }
+                }
+                if(moved) {
+                    continue;
+                }
+
+                watching[kept++] = index;
+                if(this.valueOf(clause[0]) == FALSE) {
+                    //--- conflict, keep the remaining watches
+                    for(i++; i < count; i++) {
+                        watching[kept++] = watching[i];
+                    }
+                    this.watchCount[falseLiteral] = kept;
+                    this.propagated = this.trailSize;
+                    return index;
+                }
+                this.assign(clause[0], index);
+            }
+            this.watchCount[falseLiteral] = kept;
+        }
+        return -1;
+    }
+
+    private void watch(int literal, int clause) {
+        int[] watching = this.watches[literal];
+        if(watching == null) {
+            watching = this.watches[literal] = new int[4];
+        } else if(this.watchCount[literal] == watching.length) {
+            watching = this.watches[literal] = Arrays.copyOf(watching, watching.length * 2);
+        }
+        watching[this.watchCount[literal]++] = clause;
+    }
+
+    private int attach(int[] clause, boolean learnt, int lbd) {
+        if(this.clauseCount == this.clauses.length) {
+            this.clauses = Arrays.copyOf(this.clauses, this.clauseCount * 2);
+            this.lbd = Arrays.copyOf(this.lbd, this.clauseCount * 2);
+            this.learnt = Arrays.copyOf(this.learnt, this.clauseCount * 2);
+        }
+        final int index = this.clauseCount++;
+        this.clauses[index] = clause;
+        this.learnt[index] = learnt;
+        this.lbd[index] = lbd;
+        if(learnt) {
+            this.learntCount++;
+        }
+        this.watch(clause[0], index);
+        this.watch(clause[1], index);
+        return index;
+    }
+
+    //--- Conflict analysis
+
+    /**
+     * Learns the first-UIP clause of a conflict, jumps back and asserts it.
+     */
+    private void learn(int conflict) {
+        final List<Integer> learnt = new ArrayList<>();
+        learnt.add(-1);
+
+        int paths = 0;
+        int literal = -1;
+        int index = this.trailSize - 1;
+        int[] clause = this.clauses[conflict];
+        do {
+            //--- the first literal of a reason clause is the one it implied
+            for(int j = literal == -1 ? 0 : 1; j < clause.length; j++) {
+                final int variable = clause[j] >> 1;
+                if(!this.seen[variable] && this.level[variable] > 0) {
+                    this.seen[variable] = true;
+                    this.bump(variable);
+                    if(this.level[variable] >= this.decisionLevel) {
+                        paths++;
+                    } else {
+                        learnt.add(clause[j]);
+                    }
+                }
+            }
+
+            while (!this.seen[this.trail[index] >> 1]) {
+                index--;
+            }
+            literal = this.trail[index--];
+            this.seen[literal >> 1] = false;
+            paths--;
+            if(paths > 0) {
+                clause = this.clauses[this.reason[literal >> 1]];
+            }
+        } while (paths > 0);
+        learnt.set(0, literal ^ 1);
+
+        //--- drop literals that are implied by the others of the clause
+        final int[] kept = new int[learnt.size()];
+        kept[0] = learnt.get(0);
+        int size = 1;
+        for(int i = 1; i < learnt.size(); i++) {
+            final int reason = this.reason[learnt.get(i) >> 1];
+            if(reason == -1 || !this.isRedundant(this.clauses[reason])) {
+                kept[size++] = learnt.get(i);
+            }
+        }
+        for(int i = 1; i < learnt.size(); i++) {
+            this.seen[learnt.get(i) >> 1] = false;
+        }
+
+        final int[] result = Arrays.copyOf(kept, size);
+        int backjump = 0;
+        for(int i = 1; i < size; i++) {
+            //--- the literal with the highest level after the asserting one is watched second
+            if(this.level[result[i] >> 1] > backjump) {
+                backjump = this.level[result[i] >> 1];
+                final int swap = result[i];
+                result[i] = result[1];
+                result[1] = swap;
+            }
+        }
+
+        this.backtrack(backjump);
+        if(size == 1) {
+            this.assign(result[0], -1);
+        } else {
+            this.assign(result[0], this.attach(result, true, this.blockDistance(result)));
+        }
+        this.decay();
+    }
+
+    /**
+     * Checks if all literals of a reason clause, except the implied one, are already in the learned clause or fixed.
+     */
+    private boolean isRedundant(int[] reason) {
+        for(int j = 1; j < reason.length; j++) {
+            final int variable = reason[j] >> 1;
+            if(!this.seen[variable] && this.level[variable] > 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * The amount of distinct decision levels among the literals of a clause.
+     */
+    private int blockDistance(int[] clause) {
+        this.stamp++;
+        int distance = 0;
+        for(int literal : clause) {
+            final int level = this.level[literal >> 1];
+            if(this.levelStamp[level] != this.stamp) {
+                this.levelStamp[level] = this.stamp;
+                distance++;
+            }
+        }
+        return distance;
+    }
+
+    /**
+     * Drops half of the learned clauses, the ones with the highest block distance first. Clauses that are the reason of
+     * an assignment and clauses with a block distance of at most {@link #GLUE_LBD} are kept.
+     */
+    private void reduce() {
+        final List<Integer> candidates = new ArrayList<>();
+        for(int i = 0; i < this.clauseCount; i++) {
+            final int[] clause = this.clauses[i];
+            if(clause == null || !this.learnt[i] || this.lbd[i] <= GLUE_LBD) {
+                continue;
+            }
+            final int implied = clause[0] >> 1;
+            if(this.reason[implied] == i && this.values[implied] != UNASSIGNED) {
+                continue;
+            }
+            candidates.add(i);
+        }
+        candidates.sort((a, b) -> this.lbd[a] != this.lbd[b] ? Integer.compare(this.lbd[b], this.lbd[a]) : Integer.compare(this.clauses[b].length, this.clauses[a].length));
+
+        //--- deleted clauses are removed from the watch lists lazily, during propagation
+        for(int i = 0; i < candidates.size() / 2; i++) {
+            this.clauses[candidates.get(i)] = null;
+            this.learntCount--;
+        }
+    }
+
+    //--- Activity
+
+    private void bump(int variable) {
+        if((this.activity[variable] += this.increment) > RESCALE_LIMIT) {
+            for(int v = 0; v < this.variables; v++) {
+                this.activity[v] /= RESCALE_LIMIT;
+            }
+            this.increment /= RESCALE_LIMIT;
+        }
+        if(this.heapIndex[variable] != -1) {
+            this.heapUp(this.heapIndex[variable]);
+        }
+    }
+
+    private void decay() {
+        this.increment /= VARIABLE_DECAY;
+    }
+
+    private void heapInsert(int variable) {
+        this.heap[this.heapSize] = variable;
+        this.heapIndex[variable] = this.heapSize;
+        this.heapUp(this.heapSize++);
+    }
+
+    private int heapRemoveMax() {
+        final int max = this.heap[0];
+        this.heapIndex[max] = -1;
+        final int last = this.heap[--this.heapSize];
+        if(this.heapSize > 0) {
+            this.heap[0] = last;
+            this.heapIndex[last] = 0;
+            this.heapDown(0);
+        }
+        return max;
+    }
+
+    private void heapUp(int position) {
+        final int variable = this.heap[position];
+        while (position > 0) {
+            final int parent = (position - 1) / 2;
+            if(this.activity[this.heap[parent]] >= this.activity[variable]) {
+                break;
+            }
+            this.heap[position] = this.heap[parent];
+            this.heapIndex[this.heap[position]] = position;
+            position = parent;
+        }
+        this.heap[position] = variable;
+        this.heapIndex[variable] = position;
+    }
+
+    private void heapDown(int position) {
+        final int variable = this.heap[position];
+        while (true) {
+            int child = 2 * position + 1;
+            if(child >= this.heapSize) {
+                break;
+            }
+            if(child + 1 < this.heapSize && this.activity[this.heap[child + 1]] > this.activity[this.heap[child]]) {
+                child++;
+            }
+            if(this.activity[this.heap[child]] <= this.activity[variable]) {
+                break;
+            }
+            this.heap[position] = this.heap[child];
+            this.heapIndex[this.heap[position]] = position;
+            position = child;
+        }
+        this.heap[position] = variable;
+        this.heapIndex[variable] = position;
+    }
+
+    /**
+     * The Luby sequence 1, 1, 2, 1, 1, 2, 4, 1, ..., starting at i = 1.
+     */
+    private static long luby(int i) {
+        int size = 1;
+        int power = 0;
+        while (size < i + 1) {
+            power++;
+            size = 2 * size + 1;
+        }
+        int x = i - 1;
+        while (size - 1 != x) {
+            size = (size - 1) >> 1;
+            power--;
+            x = x % size;
+        }
+        return 1L << power;
+    }
+
+}
@@ -0,0 +1,170 @@
+package edu.um.chromaster.solver;
+
+import javax.management.JMException;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The totals of all computations of the chromatic number in this process, and the {@link SolverStats} of the last one,
+ * for monitoring tools such as JConsole. The instance is registered with the platform MBean server the first time it is
+ * used.
+ */
+public final class SolverMetrics implements SolverMetricsMXBean {
+
+    public final static String OBJECT_NAME = "edu.um.chromaster:type=SolverMetrics";
+
+    private final static SolverMetrics INSTANCE = register(new SolverMetrics());
+
+    private final LongAdder computations = new LongAdder();
+    private final AtomicInteger running = new AtomicInteger();
+    private final LongAdder branches = new LongAdder();
+    private final LongAdder backtracks = new LongAdder();
+    private final LongAdder pruned = new LongAdder();
+    private final LongAdder[] phaseNanos = new LongAdder[SolverStats.Phase.values().length];
+
+    private volatile SolverStats last;
+    private volatile boolean registered = false;
+
+    private SolverMetrics() {
+        for(int i = 0; i < this.phaseNanos.length; i++) {
+            this.phaseNanos[i] = new LongAdder();
+        }
+    }
+
+    public static SolverMetrics get() {
+        return INSTANCE;
+    }
+
+    /**
+     * Counts a computation as running, until {@link #finished(SolverStats)} is called for it.
+     */
+    public void started() {
+        this.running.incrementAndGet();
+    }
+
+    /**
+     * Adds the counters of a finished computation to the totals.
+     */
+    public void finished(SolverStats stats) {
+        this.running.decrementAndGet();
+        this.computations.increment();
+        this.branches.add(stats.getBranches());
+        this.backtracks.add(stats.getBacktracks());
+        this.pruned.add(stats.getPruned());
+        for(SolverStats.Phase phase : SolverStats.Phase.values()) {
+            this.phaseNanos[phase.ordinal()].add(stats.getPhaseNanos(phase));
+        }
+        this.last = stats;
+    }
+
+    /**
+     * Checks if this instance could be registered with the platform MBean server, it is not if the server has rejected
+     * it, or if another class loader has registered its instance first. The counters work either way.
+     */
+    public boolean isRegistered() {
+        return this.registered;
+    }
+
+    /**
+     * The counters of the last finished computation, or null if there has been none.
+     */
+    public SolverStats getLast() {
+        return this.last;
+    }
+
+    @Override
+    public long getComputations() {
+        return this.computations.sum();
+    }
+
+    @Override
+    public int getRunning() {
+        return this.running.get();
+    }
+
+    @Override
+    public long getBranches() {
+        return this.branches.sum();
+    }
+
+    @Override
+    public long getBacktracks() {
+        return this.backtracks.sum();
+    }
+
+    @Override
+    public long getPruned() {
+        return this.pruned.sum();
+    }
+
+    @Override
+    public long getLowerMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(this.phaseNanos[SolverStats.Phase.LOWER.ordinal()].sum());
+    }
+
+    @Override
+    public long getUpperMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(this.phaseNanos[SolverStats.Phase.UPPER.ordinal()].sum());
+    }
+
+    @Override
+    public long getExactMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(this.phaseNanos[SolverStats.Phase.EXACT.ordinal()].sum());
+    }
+
+    @Override
+    public long getLastElapsedMillis() {
+        final SolverStats last = this.last;
+        return last == null ? 0 : TimeUnit.NANOSECONDS.toMillis(last.getElapsedNanos());
+    }
+
+    @Override
+    public long getLastBranches() {
+        final SolverStats last = this.last;
+        return last == null ? 0 : last.getBranches();
+    }
+
+    @Override
+    public int getLastThreads() {
+        final SolverStats last = this.last;
+        return last == null ? 0 : last.getThreads();
+    }
+
+    @Override
+    public String getLastStats() {
+        final SolverStats last = this.last;
+        return last == null ? "" : last.toString();
+    }
+
+    @Override
+    public String[] getLastTimeline() {
+        final SolverStats last = this.last;
+        return last == null ? new String[0] : last.getTimeline().stream().map(SolverStats.Bound::toString).toArray(String[]::new);
+    }
+
+    @Override
+    public void reset() {
+        this.computations.reset();
+        this.branches.reset();
+        this.backtracks.reset();
+        this.pruned.reset();
+        for(LongAdder adder : this.phaseNanos) {
+            adder.reset();
+        }
+    }
+
+    private static SolverMetrics register(SolverMetrics metrics) {
+        try {
+            ManagementFactory.getPlatformMBeanServer().registerMBean(metrics, new ObjectName(OBJECT_NAME));
+            metrics.registered = true;
+        } catch (JMException e) {
+            //--- loaded twice by different class loaders, the first one stays visible, or rejected by the server, see
+            // isRegistered()
+        }
+        return metrics;
+    }
+
+}
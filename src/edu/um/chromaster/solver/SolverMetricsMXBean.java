@@ -0,0 +1,51 @@
+package edu.um.chromaster.solver;
+
+/**
+ * The management interface of {@link SolverMetrics}, registered as {@value SolverMetrics#OBJECT_NAME}.
+ */
+public interface SolverMetricsMXBean {
+
+    /**
+     * The amount of computations that have finished since the start or the last {@link #reset()}.
+     */
+    long getComputations();
+
+    /**
+     * The amount of computations that are running right now.
+     */
+    int getRunning();
+
+    long getBranches();
+
+    long getBacktracks();
+
+    long getPruned();
+
+    long getLowerMillis();
+
+    long getUpperMillis();
+
+    long getExactMillis();
+
+    long getLastElapsedMillis();
+
+    long getLastBranches();
+
+    int getLastThreads();
+
+    /**
+     * All counters of the last finished computation.
+     */
+    String getLastStats();
+
+    /**
+     * The improvements of the bounds of the last finished computation, one entry each.
+     */
+    String[] getLastTimeline();
+
+    /**
+     * Sets the totals back to 0.
+     */
+    void reset();
+
+}
@@ -0,0 +1,145 @@
+package edu.um.chromaster.solver;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The counters of one finished computation of the chromatic number, a snapshot of its {@link Progress}.
+ *
+ * Branches are the nodes a search has expanded, backtracks the decisions it has undone, and pruned the subtrees it has
+ * cut without expanding them, because of a bound or a known failure. They are summed over all solvers and workers of the
+ * computation.
+ */
+public final class SolverStats {
+
+    /**
+     * The parts of a computation that are timed separately. Phases can overlap, the exact search runs alongside the lower
+     * bound.
+     */
+    public enum Phase {
+        LOWER,
+        UPPER,
+        EXACT
+    }
+
+    /**
+     * One improvement of the bounds.
+     */
+    public static final class Bound {
+
+        private final long nanos;
+        private final int lower;
+        private final int upper;
+
+        Bound(long nanos, int lower, int upper) {
+            this.nanos = nanos;
+            this.lower = lower;
+            this.upper = upper;
+        }
+
+        /**
+         * The time since the computation has started, in nanoseconds.
+         */
+        public long getNanos() {
+            return this.nanos;
+        }
+
+        /**
+         * The lower bound after the improvement, or -1 if none is known yet.
+         */
+        public int getLower() {
+            return this.lower;
+        }
+
+        /**
+         * The upper bound after the improvement, or -1 if none is known yet.
+         */
+        public int getUpper() {
+            return this.upper;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%dms [%d..%d]", this.nanos / 1_000_000, this.lower, this.upper);
+        }
+
+    }
+
+    private final long elapsedNanos;
+    private final long branches;
+    private final long backtracks;
+    private final long pruned;
+    private final long[] phaseNanos;
+    private final List<Bound> timeline;
+    private final int threads;
+    private final UpperBoundPortfolio.Heuristic heuristic;
+
+    SolverStats(long elapsedNanos, long branches, long backtracks, long pruned, long[] phaseNanos, List<Bound> timeline,
+                int threads, UpperBoundPortfolio.Heuristic heuristic) {
+        this.elapsedNanos = elapsedNanos;
+        this.branches = branches;
+        this.backtracks = backtracks;
+        this.pruned = pruned;
+        this.phaseNanos = phaseNanos;
+        this.timeline = Collections.unmodifiableList(timeline);
+        this.threads = threads;
+        this.heuristic = heuristic;
+    }
+
+    /**
+     * The time from the start of the computation until the snapshot, in nanoseconds.
+     */
+    public long getElapsedNanos() {
+        return this.elapsedNanos;
+    }
+
+    public long getBranches() {
+        return this.branches;
+    }
+
+    public long getBacktracks() {
+        return this.backtracks;
+    }
+
+    public long getPruned() {
+        return this.pruned;
+    }
+
+    /**
+     * The time spent in one phase, in nanoseconds, summed over all of its runs.
+     */
+    public long getPhaseNanos(Phase phase) {
+        return this.phaseNanos[phase.ordinal()];
+    }
+
+    /**
+     * Every improvement of the bounds, in the order they were found.
+     */
+    public List<Bound> getTimeline() {
+        return this.timeline;
+    }
+
+    /**
+     * The amount of distinct threads that have worked on the computation.
+     */
+    public int getThreads() {
+        return this.threads;
+    }
+
+    /**
+     * The heuristic of the {@link UpperBoundPortfolio} that has produced the colouring the upper bound has started from,
+     * which a local search may have improved since, or null if the portfolio has not run.
+     */
+    public UpperBoundPortfolio.Heuristic getHeuristic() {
+        return this.heuristic;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%dms, branches: %d, backtracks: %d, pruned: %d, lower: %dms, upper: %dms, exact: %dms, threads: %d, heuristic: %s, bounds: %s",
+                this.elapsedNanos / 1_000_000, this.branches, this.backtracks, this.pruned,
+                this.getPhaseNanos(Phase.LOWER) / 1_000_000, this.getPhaseNanos(Phase.UPPER) / 1_000_000,
+                this.getPhaseNanos(Phase.EXACT) / 1_000_000, this.threads, this.heuristic, this.timeline);
+    }
+
+}
@@ -0,0 +1,248 @@
+package edu.um.chromaster.solver;
+
+import edu.um.chromaster.graph.Colouring;
+import edu.um.chromaster.graph.CompactGraph;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Improves a colouring with TabuCol (Hertz and de Werra, 1987, with the tabu tenure of Galinier and Hao, 1999), a local
+ * search for graphs that are too large for an exact search.
+ *
+ * Starting from a colouring with k colours, the nodes of the last colour class are moved to the colour with the fewest
+ * neighbours, and the search then tries to remove all conflicts with k - 1 colours. Every step moves one conflicting
+ * node to the colour that removes the most conflicts, moving a node back to a colour it just left is tabu for a while,
+ * unless it leads to fewer conflicts than ever before. Once a colouring without conflicts is found, the next lower k is
+ * tried, the search stops at the first k it cannot solve within its iteration limit or its {@link Deadline}, or once it
+ * reaches the lower bound.
+ *
+ * For every node and colour the amount of neighbours with that colour is kept in one flat table, so evaluating a move is
+ * O(1), and a move only updates the entries of the neighbours of the moved node.
+ *
+ * The search uses a fixed seed, so the result is deterministic as long as the deadline does not expire.
+ */
+public class TabuColSolver {
+
+    //--- how many moves are tried for one k before giving up, and how often the deadline is checked
+    private final static int ITERATIONS = 200_000;
+    private final static int DEADLINE_CHECK_INTERVAL = 1 << 10;
+
+    //--- tenure = random(TENURE_RANDOM) + TENURE_FACTOR * conflicts, see Galinier and Hao
+    private final static int TENURE_RANDOM = 10;
+    private final static double TENURE_FACTOR = 0.6;
+    private final static long SEED = 1;
+
+    private final CompactGraph graph;
+    private final int[] offsets;
+    private final int[] targets;
+    private final int size;
+
+    private volatile Deadline deadline = Deadline.none();
+    private volatile Progress progress = new Progress();
+    private long iterations;
+
+    public TabuColSolver(CompactGraph graph) {
+        this.graph = graph;
+        this.offsets = graph.offsets();
+        this.targets = graph.targets();
+        this.size = graph.size();
+    }
+
+    /**
+     * Sets the deadline of the following searches, the default one never expires.
+     */
+    public void setDeadline(Deadline deadline) {
+        this.deadline = deadline;
+    }
+
+    /**
+     * Sets the counters the following searches report their upper bounds to.
+     */
+    public void setProgress(Progress progress) {
+        this.progress = progress;
+    }
+
+    /**
+     * Reduces the amount of colours of a colouring as far as possible.
+     * @param initial A complete colouring to start from, or null to start from a first-fit colouring.
+     * @param lowerBound A known lower bound of the chromatic number, or 0, the search stops once it reaches it.
+     * @return Never null, a complete colouring with colours in the range [0..k), with at most as many colours as the
+     * initial one.
+     */
+    public Colouring solve(Colouring initial, int lowerBound) {
+        this.iterations = 0;
+        if(this.size == 0) {
+            return new Colouring(0);
+        }
+
+        int[] best;
+        if(initial != null && initial.isValid(this.graph)) {
+            best = DsaturSolver.normalise(initial.values());
+        } else {
+            best = new int[this.size];
+            DsaturSolver.firstFit(this.graph, best);
+        }
+        int colours = Colouring.wrap(best).countColours();
+        this.progress.improveUpper(colours);
+
+        final int lower = Math.max(Math.max(lowerBound, 1), DsaturSolver.greedyClique(this.graph));
+        final Random random = new Random(SEED);
+        while (colours > lower && !this.deadline.isExpired()) {
+            final int[] values = this.dropColour(best, colours - 1);
+            if(!this.search(values, colours - 1, random)) {
+                break;
+            }
+
+            //--- the search may have emptied more than one colour class
+            best = DsaturSolver.normalise(values);
+            colours = Colouring.wrap(best).countColours();
+            this.progress.improveUpper(colours);
+        }
+        return Colouring.wrap(best);
+    }
+
+    /**
+     * The amount of moves made by the last call of {@link #solve(Colouring, int)}.
+     */
+    public long getIterations() {
+        return this.iterations;
+    }
+
+    /**
+     * Moves all nodes with the colour 'colours' to the colour in [0..colours) that the fewest of their neighbours have.
+     */
+    private int[] dropColour(int[] values, int colours) {
+        final int[] result = values.clone();
+        final int[] count = new int[colours];
+        for(int v = 0; v < this.size; v++) {
+            if(result[v] != colours) {
+                continue;
+            }
+            Arrays.fill(count, 0);
+            for(int i = this.offsets[v]; i < this.offsets[v + 1]; i++) {
+                final int colour = result[this.targets[i]];
+                if(colour < colours) {
+                    count[colour]++;
+                }
+            }
+            int best = 0;
+            for(int c = 1; c < colours; c++) {
+                if(count[c] < count[best]) {
+                    best = c;
+                }
+            }
+            result[v] = best;
+        }
+        return result;
+    }
+
+    /**
+     * Searches a colouring without conflicts.
+     * @param values A complete colouring with colours in the range [0..colours), it is changed in place.
+     * @return True if the colouring is free of conflicts.
+     */
+    private boolean search(int[] values, int colours, Random random) {
+        //--- neighbours[v * colours + c] = amount of neighbours of v with colour c
+        final int[] neighbours = new int[Math.multiplyExact(this.size, colours)];
+        //--- tabu[v * colours + c] = the first iteration in which v may take the colour c again
+        final int[] tabu = new int[neighbours.length];
+        for(int v = 0; v < this.size; v++) {
+            for(int i = this.offsets[v]; i < this.offsets[v + 1]; i++) {
+                neighbours[v * colours + values[this.targets[i]]]++;
+            }
+        }
+
+        //--- all nodes with at least one conflict, and their position in the list
+        final int[] conflicting = new int[this.size];
+        final int[] position = new int[this.size];
+        Arrays.fill(position, -1);
+        int count = 0;
+        int conflicts = 0;
+        for(int v = 0; v < this.size; v++) {
+            final int own = neighbours[v * colours + values[v]];
+            if(own > 0) {
+                position[v] = count;
+                conflicting[count++] = v;
+                conflicts += own;
+            }
+        }
+        conflicts /= 2;
+        int fewest = conflicts;
+
+        for(int iteration = 0; iteration < ITERATIONS && conflicts > 0; iteration++) {
+            if((iteration & (DEADLINE_CHECK_INTERVAL - 1)) == 0 && this.deadline.isExpired()) {
+                break;
+            }
+            this.iterations++;
+
+            //--- find the best move, ties are broken uniformly at random
+            int bestDelta = Integer.MAX_VALUE;
+            int bestNode = -1;
+            int bestColour = -1;
+            int ties = 0;
+            for(int i = 0; i < count; i++) {
+                final int v = conflicting[i];
+                final int base = v * colours;
+                final int own = neighbours[base + values[v]];
+                for(int c = 0; c < colours; c++) {
+                    if(c == values[v]) {
+                        continue;
+                    }
+                    final int delta = neighbours[base + c] - own;
+                    //--- a tabu move is only allowed if it leads to fewer conflicts than ever before (aspiration)
+                    if(tabu[base + c] > iteration && conflicts + delta >= fewest) {
+                        continue;
+                    }
+                    if(delta < bestDelta) {
+                        bestDelta = delta;
+                        bestNode = v;
+                        bestColour = c;
+                        ties = 1;
+                    } else if(delta == bestDelta && random.nextInt(++ties) == 0) {
+                        bestNode = v;
+                        bestColour = c;
+                    }
+                }
+            }
+            if(bestNode == -1) {
+                continue;
+            }
+
+            final int old = values[bestNode];
+            values[bestNode] = bestColour;
+            conflicts += bestDelta;
+            fewest = Math.min(fewest, conflicts);
+            tabu[bestNode * colours + old] = iteration + random.nextInt(TENURE_RANDOM) + (int) (TENURE_FACTOR * conflicts);
+
+            for(int i = this.offsets[bestNode]; i < this.offsets[bestNode + 1]; i++) {
+                final int u = this.targets[i];
+                neighbours[u * colours + old]--;
+                neighbours[u * colours + bestColour]++;
+                count = this.update(u, values, neighbours, colours, conflicting, position, count);
+            }
+            count = this.update(bestNode, values, neighbours, colours, conflicting, position, count);
+        }
+        return conflicts == 0;
+    }
+
+    /**
+     * Adds a node to or removes it from the list of conflicting nodes.
+     * @return The new length of the list.
+     */
+    private int update(int node, int[] values, int[] neighbours, int colours, int[] conflicting, int[] position, int count) {
+        final boolean conflict = neighbours[node * colours + values[node]] > 0;
+        if(conflict && position[node] == -1) {
+            position[node] = count;
+            conflicting[count++] = node;
+        } else if(!conflict && position[node] != -1) {
+            //--- swap the last node into the gap
+            final int last = conflicting[--count];
+            conflicting[position[node]] = last;
+            position[last] = position[node];
+            position[node] = -1;
+        }
+        return count;
+    }
+
+}
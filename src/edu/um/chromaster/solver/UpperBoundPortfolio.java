@@ -0,0 +1,438 @@
+package edu.um.chromaster.solver;
+
+import edu.um.chromaster.graph.Colouring;
+import edu.um.chromaster.graph.CompactGraph;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.Random;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Runs several greedy colouring heuristics and keeps the colouring with the fewest colours, a tight upper bound shrinks
+ * the range the exact search has to cover.
+ *
+ * The heuristics are independent of each other, if the portfolio is created with a {@link ForkJoinPool} they run in
+ * parallel. All of them share one {@link Deadline}: the single-pass heuristics are fast enough to ignore it,
+ * recursive largest first gives up once it expires, and iterated greedy returns the best colouring it has found so far.
+ * Recursive largest first needs quadratic time, it is skipped on graphs with more than 2^14 nodes.
+ *
+ * The result is deterministic as long as the deadline does not expire, iterated greedy uses a fixed seed, and ties are
+ * won by the heuristic that comes first in {@link Heuristic}.
+ */
+public class UpperBoundPortfolio {
+
+    public enum Heuristic {
+        //--- first-fit in the order of decreasing degree
+        WELSH_POWELL,
+        //--- first-fit on the node with the most distinct colours among its neighbours (Brelaz)
+        DSATUR,
+        //--- builds one colour class after the other, always adding the node that excludes most others (Leighton)
+        RECURSIVE_LARGEST_FIRST,
+        //--- repeatedly recolours first-fit with the colour classes of the last colouring reordered (Culberson)
+        ITERATED_GREEDY
+    }
+
+    //--- iterated greedy stops after this many iterations, or after this many iterations without an improvement
+    private final static int ITERATIONS = 1000;
+    private final static int STALL_ITERATIONS = 100;
+    private final static long SEED = 1;
+
+    //--- recursive largest first rescans the candidates for every node it adds to a colour class, so it only runs on
+    // graphs up to this size
+    private final static int RLF_MAX_SIZE = 1 << 14;
+
+    //--- the DSATUR queue packs saturation, degree and node into one long, 21 bits each
+    private final static int PACK_BITS = 21;
+    private final static long PACK_MASK = (1L << PACK_BITS) - 1;
+
+    private final CompactGraph graph;
+    private final ForkJoinPool pool;
+
+    private volatile Deadline deadline = Deadline.none();
+    private Heuristic heuristic;
+
+    /**
+     * Creates a portfolio that runs the heuristics one after the other on the calling thread.
+     */
+    public UpperBoundPortfolio(CompactGraph graph) {
+        this(graph, null);
+    }
+
+    /**
+     * Creates a portfolio that runs the heuristics in parallel in the provided pool.
+     * @param graph The graph.
+     * @param pool The pool, or null to run on the calling thread.
+     */
+    public UpperBoundPortfolio(CompactGraph graph, ForkJoinPool pool) {
+        this.graph = graph;
+        this.pool = pool;
+    }
+
+    /**
+     * Sets the deadline of the following runs, the default one never expires.
+     */
+    public void setDeadline(Deadline deadline) {
+        this.deadline = deadline;
+    }
+
+    /**
+     * Runs all heuristics.
+     * @return Never null, the complete colouring with the fewest colours, with colours in the range [0..k).
+     */
+    public Colouring solve() {
+        final Heuristic[] heuristics = Heuristic.values();
+        final int[][] colourings = new int[heuristics.length][];
+        final int[] counts = new int[heuristics.length];
+        final Deadline deadline = this.deadline.child();
+
+        if(this.pool == null) {
+            for(Heuristic heuristic : heuristics) {
+                colourings[heuristic.ordinal()] = new int[this.graph.size()];
+                counts[heuristic.ordinal()] = this.run(heuristic, colourings[heuristic.ordinal()], deadline);
+            }
+        } else {
+            final List<RecursiveAction> tasks = new ArrayList<>(heuristics.length);
+            for(Heuristic heuristic : heuristics) {
+                tasks.add(new RecursiveAction() {
+                    @Override
+                    protected void compute() {
+                        final int[] values = new int[graph.size()];
+                        counts[heuristic.ordinal()] = run(heuristic, values, deadline);
+                        colourings[heuristic.ordinal()] = values;
+                    }
+                });
+            }
+
+            final ForkJoinTask<Void> task = this.pool.submit(new RecursiveAction() {
+                @Override
+                protected void compute() {
+                    invokeAll(tasks);
+                }
+            });
+            try {
+                task.get();
+            } catch (InterruptedException e) {
+                deadline.cancel();
+                task.join();
+                Thread.currentThread().interrupt();
+            } catch (ExecutionException e) {
+                throw new IllegalStateException(e.getCause());
+            }
+        }
+
+        //--- welsh-powell never gives up, so there always is a result
+        Heuristic best = Heuristic.WELSH_POWELL;
+        for(Heuristic heuristic : heuristics) {
+            if(counts[heuristic.ordinal()] != -1 && counts[heuristic.ordinal()] < counts[best.ordinal()]) {
+                best = heuristic;
+            }
+        }
+        this.heuristic = best;
+        return Colouring.wrap(colourings[best.ordinal()]);
+    }
+
+    /**
+     * The heuristic that has produced the colouring returned by the last call of {@link #solve()}.
+     */
+    public Heuristic getHeuristic() {
+        return this.heuristic;
+    }
+
+    private int run(Heuristic heuristic, int[] values, Deadline deadline) {
+        switch (heuristic) {
+            case WELSH_POWELL: return welshPowell(this.graph, values);
+            case DSATUR: return dsatur(this.graph, values);
+            case RECURSIVE_LARGEST_FIRST: return recursiveLargestFirst(this.graph, values, deadline);
+            case ITERATED_GREEDY: {
+                final int colours = dsatur(this.graph, values);
+                return colours == -1 ? -1 : iteratedGreedy(this.graph, values, colours, deadline, new Random(SEED));
+            }
+        }
+        throw new IllegalStateException();
+    }
+
+    /**
+     * Colours the nodes first-fit in the order of decreasing degree.
+     * @param values The colouring, it is overwritten.
+     * @return The amount of colours used, the colours are in the range [0..k).
+     */
+    public static int welshPowell(CompactGraph graph, int[] values) {
+        return firstFit(graph, degreeOrder(graph), values, new int[graph.maxDegree() + 1]);
+    }
+
+    /**
+     * Colours the nodes first-fit in the provided order. First-fit only uses a colour once all lower ones are taken by a
+     * neighbour, so the colours are always in the range [0..k).
+     * @param used Scratch space with at least maxDegree + 1 entries.
+     * @return The amount of colours used.
+     */
+    private static int firstFit(CompactGraph graph, int[] order, int[] values, int[] used) {
+        final int[] offsets = graph.offsets();
+        final int[] targets = graph.targets();
+        Arrays.fill(values, Colouring.UNCOLOURED);
+        Arrays.fill(used, 0);
+
+        //--- colours used by the neighbours of the current node are marked with the current stamp, this way the array
+        // never has to be cleared
+        int stamp = 0;
+        int colours = 0;
+        for(int node : order) {
+            stamp++;
+            for(int i = offsets[node]; i < offsets[node + 1]; i++) {
+                final int colour = values[targets[i]];
+                if(colour != Colouring.UNCOLOURED) {
+                    used[colour] = stamp;
+                }
+            }
+
+            int colour = 0;
+            while (used[colour] == stamp) {
+                colour++;
+            }
+            values[node] = colour;
+            colours = Math.max(colours, colour + 1);
+        }
+        return colours;
+    }
+
+    /**
+     * Returns all node indices ordered by their degree descending, nodes with the same degree keep their relative order.
+     */
+    private static int[] degreeOrder(CompactGraph graph) {
+        //--- counting sort, the degree is bound by the max degree
+        final int[] buckets = new int[graph.maxDegree() + 2];
+        for(int v = 0; v < graph.size(); v++) {
+            buckets[graph.maxDegree() - graph.degree(v) + 1]++;
+        }
+        for(int i = 1; i < buckets.length; i++) {
+            buckets[i] += buckets[i - 1];
+        }
+
+        final int[] order = new int[graph.size()];
+        for(int v = 0; v < graph.size(); v++) {
+            order[buckets[graph.maxDegree() - graph.degree(v)]++] = v;
+        }
+        return order;
+    }
+
+    /**
+     * Colours the node with the highest saturation next, ties are broken by the degree, with the lowest available colour.
+     * @return The amount of colours used, or -1 if the graph is too large for the packed queue.
+     */
+    private static int dsatur(CompactGraph graph, int[] values) {
+        if(graph.size() > PACK_MASK) {
+            return -1;
+        }
+        final int[] offsets = graph.offsets();
+        final int[] targets = graph.targets();
+        Arrays.fill(values, Colouring.UNCOLOURED);
+
+        //--- the colours among the neighbours of every node, an entry of the queue is stale once the saturation of its
+        // node has changed
+        final BitSet[] neighbourColours = new BitSet[graph.size()];
+        final int[] saturation = new int[graph.size()];
+        final PriorityQueue<Long> queue = new PriorityQueue<>(Math.max(1, graph.size()), Collections.reverseOrder());
+        for(int v = 0; v < graph.size(); v++) {
+            queue.add(pack(0, graph.degree(v), v));
+        }
+
+        int colours = 0;
+        while (!queue.isEmpty()) {
+            final long entry = queue.poll();
+            final int node = (int) (entry & PACK_MASK);
+            if(values[node] != Colouring.UNCOLOURED || (entry >>> (2 * PACK_BITS)) != saturation[node]) {
+                continue;
+            }
+
+            final int colour = neighbourColours[node] == null ? 0 : neighbourColours[node].nextClearBit(0);
+            values[node] = colour;
+            colours = Math.max(colours, colour + 1);
+
+            for(int i = offsets[node]; i < offsets[node + 1]; i++) {
+                final int neighbour = targets[i];
+                if(values[neighbour] != Colouring.UNCOLOURED) {
+                    continue;
+                }
+                if(neighbourColours[neighbour] == null) {
+                    neighbourColours[neighbour] = new BitSet();
+                }
+                if(!neighbourColours[neighbour].get(colour)) {
+                    neighbourColours[neighbour].set(colour);
+                    saturation[neighbour]++;
+                    queue.add(pack(saturation[neighbour], graph.degree(neighbour), neighbour));
+                }
+            }
+        }
+        return colours;
+    }
+
+    private static long pack(int saturation, int degree, int node) {
+        return ((long) saturation << (2 * PACK_BITS)) | (Math.min(degree, PACK_MASK) << PACK_BITS) | node;
+    }
+
+    /**
+     * Builds one colour class after the other. Every class starts with the uncoloured node with the most uncoloured
+     * neighbours, and then repeatedly takes the candidate with the most neighbours among the excluded nodes (the
+     * neighbours of the class), ties are broken by the fewest neighbours among the other candidates.
+     * @return The amount of colours used, or -1 if the deadline has expired first or the graph is too large.
+     */
+    private static int recursiveLargestFirst(CompactGraph graph, int[] values, Deadline deadline) {
+        if(graph.size() > RLF_MAX_SIZE) {
+            return -1;
+        }
+        final int candidate = 0;
+        final int excluded = 1;
+        final int coloured = 2;
+
+        final int[] offsets = graph.offsets();
+        final int[] targets = graph.targets();
+        final int size = graph.size();
+        Arrays.fill(values, Colouring.UNCOLOURED);
+
+        final int[] state = new int[size];
+        //--- the amount of uncoloured neighbours, and the amount of excluded neighbours of every node
+        final int[] uncolouredDegree = new int[size];
+        final int[] excludedDegree = new int[size];
+        final int[] uncoloured = new int[size];
+        int remaining = size;
+        for(int v = 0; v < size; v++) {
+            uncolouredDegree[v] = graph.degree(v);
+            uncoloured[v] = v;
+        }
+
+        int colour = 0;
+        while (remaining > 0) {
+            if(deadline.isExpired()) {
+                return -1;
+            }
+
+            int node = -1;
+            for(int i = 0; i < remaining; i++) {
+                final int v = uncoloured[i];
+                state[v] = candidate;
+                excludedDegree[v] = 0;
+                if(node == -1 || uncolouredDegree[v] > uncolouredDegree[node]) {
+                    node = v;
+                }
+            }
+
+            while (node != -1) {
+                if(deadline.poll()) {
+                    return -1;
+                }
+                values[node] = colour;
+                state[node] = coloured;
+                for(int i = offsets[node]; i < offsets[node + 1]; i++) {
+                    final int neighbour = targets[i];
+                    uncolouredDegree[neighbour]--;
+                    if(state[neighbour] == candidate) {
+                        state[neighbour] = excluded;
+                        for(int j = offsets[neighbour]; j < offsets[neighbour + 1]; j++) {
+                            excludedDegree[targets[j]]++;
+                        }
+                    }
+                }
+
+                node = -1;
+                for(int i = 0; i < remaining; i++) {
+                    final int v = uncoloured[i];
+                    if(state[v] != candidate) {
+                        continue;
+                    }
+                    if(node == -1 || excludedDegree[v] > excludedDegree[node] || (excludedDegree[v] == excludedDegree[node]
+                            && uncolouredDegree[v] - excludedDegree[v] < uncolouredDegree[node] - excludedDegree[node])) {
+                        node = v;
+                    }
+                }
+            }
+
+            //--- drop the coloured nodes from the list
+            int kept = 0;
+            for(int i = 0; i < remaining; i++) {
+                if(state[uncoloured[i]] != coloured) {
+                    uncoloured[kept++] = uncoloured[i];
+                }
+            }
+            remaining = kept;
+            colour++;
+        }
+        return colour;
+    }
+
+    /**
+     * Recolours the nodes first-fit, one colour class of the current colouring after the other. The nodes of a class are
+     * not adjacent, so first-fit never needs more colours than before, and often fewer. The classes are reordered in
+     * reverse, by decreasing size, or randomly.
+     * @param values A complete colouring with colours in the range [0..colours), it is replaced by the best one found.
+     * @return The amount of colours of the best colouring.
+     */
+    private static int iteratedGreedy(CompactGraph graph, int[] values, int colours, Deadline deadline, Random random) {
+        final int size = graph.size();
+        final int[] order = new int[size];
+        final int[] next = new int[size];
+        final int[] used = new int[graph.maxDegree() + 1];
+        final int[] classSize = new int[colours + 1];
+        final int[] rank = new int[colours + 1];
+        final int[] start = new int[colours + 2];
+        final Integer[] classes = new Integer[colours];
+        for(int v = 0; v < size; v++) {
+            order[v] = v;
+        }
+
+        int best = colours;
+        int stall = 0;
+        for(int iteration = 0; iteration < ITERATIONS && stall < STALL_ITERATIONS && best > 1; iteration++) {
+            if(deadline.isExpired()) {
+                break;
+            }
+
+            //--- pick the order of the classes
+            Arrays.fill(classSize, 0);
+            for(int v = 0; v < size; v++) {
+                classSize[values[v]]++;
+            }
+            for(int c = 0; c < best; c++) {
+                classes[c] = c;
+            }
+            switch (random.nextInt(3)) {
+                case 0: Collections.reverse(Arrays.asList(classes).subList(0, best)); break;
+                case 1: Arrays.sort(classes, 0, best, (a, b) -> Integer.compare(classSize[b], classSize[a])); break;
+                default: Collections.shuffle(Arrays.asList(classes).subList(0, best), random); break;
+            }
+            for(int c = 0; c < best; c++) {
+                rank[classes[c]] = c;
+            }
+
+            //--- counting sort of the nodes by the rank of their class, keeping their order within a class
+            Arrays.fill(start, 0);
+            for(int v = 0; v < size; v++) {
+                start[rank[values[v]] + 1]++;
+            }
+            for(int c = 1; c <= best; c++) {
+                start[c] += start[c - 1];
+            }
+            for(int node : order) {
+                next[start[rank[values[node]]]++] = node;
+            }
+            System.arraycopy(next, 0, order, 0, size);
+
+            final int count = firstFit(graph, order, values, used);
+            if(count < best) {
+                best = count;
+                stall = 0;
+            } else {
+                stall++;
+            }
+        }
+        return best;
+    }
+
+}